@@ -0,0 +1,95 @@
+package bench;
+
+import java.util.Locale;
+
+// One measured benchmark; printed as a CSV line so runs from different commits can be diffed
+public class BenchmarkResult {
+
+    public static final String CSV_HEADER = "benchmark,params,ops,ops_per_sec,avg_ns,p50_ns,p99_ns,max_ns,alloc_bytes_per_op,retained_bytes";
+
+    private final String name;
+    private final String params;
+    private final long ops;
+    private final long totalNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+    private final double allocatedBytesPerOp;
+    private final long retainedBytes;
+
+    public BenchmarkResult(String name, String params, long ops, long totalNanos,
+                           long p50Nanos, long p99Nanos, long maxNanos, double allocatedBytesPerOp) {
+        this(name, params, ops, totalNanos, p50Nanos, p99Nanos, maxNanos, allocatedBytesPerOp, -1);
+    }
+
+    private BenchmarkResult(String name, String params, long ops, long totalNanos, long p50Nanos, long p99Nanos,
+                            long maxNanos, double allocatedBytesPerOp, long retainedBytes) {
+        this.name = name;
+        this.params = params;
+        this.ops = ops;
+        this.totalNanos = totalNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+        this.allocatedBytesPerOp = allocatedBytesPerOp;
+        this.retainedBytes = retainedBytes;
+    }
+
+    // A memory measurement: only the retained heap is set, the timing columns are 0
+    public static BenchmarkResult retained(String name, String params, long retainedBytes) {
+        return new BenchmarkResult(name, params, 0, 0, 0, 0, 0, -1, retainedBytes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getParams() {
+        return params;
+    }
+
+    public long getOps() {
+        return ops;
+    }
+
+    public double getOpsPerSecond() {
+        return totalNanos == 0 ? 0 : ops * 1_000_000_000.0 / totalNanos;
+    }
+
+    public double getAverageNanos() {
+        return ops == 0 ? 0 : (double) totalNanos / ops;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    // Heap bytes allocated by the benchmark thread per operation, or -1 if the JVM cannot tell
+    public double getAllocatedBytesPerOp() {
+        return allocatedBytesPerOp;
+    }
+
+    // Heap still in use after GC because of the measured structure, or -1 for timing results
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%s,%s,%d,%.1f,%.1f,%d,%d,%d,%.1f,%d",
+                name, params.replace(',', ';'), ops, getOpsPerSecond(), getAverageNanos(),
+                p50Nanos, p99Nanos, maxNanos, allocatedBytesPerOp, retainedBytes);
+    }
+
+    @Override
+    public String toString() {
+        if (retainedBytes >= 0) {
+            return String.format(Locale.ROOT, "%-40s %-20s %12d bytes retained", name, params, retainedBytes);
+        }
+        return String.format(Locale.ROOT, "%-40s %-20s %12.1f ops/s  avg %10.1f ns  p50 %8d ns  p99 %8d ns  %9.1f B/op",
+                name, params, getOpsPerSecond(), getAverageNanos(), p50Nanos, p99Nanos, allocatedBytesPerOp);
+    }
+}
@@ -0,0 +1,171 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Small dependency-free benchmark runner modelled on JMH: time-based warmup, then measurement.
+// Very fast operations are timed in groups so System.nanoTime() does not dominate the result.
+public class BenchmarkRunner {
+
+    // Each timed sample should take at least this long
+    private static final long TARGET_SAMPLE_NANOS = 20_000;
+    private static final int MAX_SAMPLES = 1_000_000;
+    private static final int MAX_GC_ROUNDS = 10;
+
+    private final long warmupMillis;
+    private final long measureMillis;
+    private final List<BenchmarkResult> results = new ArrayList<>();
+
+    // Results are written here so the JIT cannot drop the benchmarked work
+    private static volatile Object sink;
+
+    public BenchmarkRunner(long warmupMillis, long measureMillis) {
+        if (warmupMillis < 0 || measureMillis <= 0) {
+            throw new IllegalArgumentException("invalid warmup/measurement time.");
+        }
+        this.warmupMillis = warmupMillis;
+        this.measureMillis = measureMillis;
+    }
+
+    public static void consume(Object value) {
+        sink = value;
+    }
+
+    public static void consume(double value) {
+        sink = value;
+    }
+
+    public BenchmarkResult run(String name, String params, Operation operation) throws Exception {
+        int batch = warmup(operation);
+
+        long[] samples = new long[1024];
+        int sampleCount = 0;
+        long ops = 0;
+        long totalNanos = 0;
+        long allocatedBefore = allocatedBytes();
+        long deadline = System.nanoTime() + measureMillis * 1_000_000;
+
+        while (System.nanoTime() < deadline && sampleCount < MAX_SAMPLES) {
+            long start = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                operation.run();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (sampleCount == samples.length) {
+                samples = Arrays.copyOf(samples, samples.length * 2);
+            }
+            samples[sampleCount++] = elapsed / batch;
+            ops += batch;
+            totalNanos += elapsed;
+        }
+
+        long allocatedAfter = allocatedBytes();
+        double allocatedPerOp = allocatedBefore < 0 || ops == 0 ? -1 : (double) (allocatedAfter - allocatedBefore) / ops;
+
+        Arrays.sort(samples, 0, sampleCount);
+        BenchmarkResult result = new BenchmarkResult(name, params, ops, totalNanos,
+                percentile(samples, sampleCount, 0.50),
+                percentile(samples, sampleCount, 0.99),
+                sampleCount == 0 ? 0 : samples[sampleCount - 1], allocatedPerOp);
+
+        results.add(result);
+        System.out.println(result);
+        return result;
+    }
+
+    // Heap retained by what build returns: used heap after a settled GC, with and without the result alive.
+    // Anything build allocates and drops (e.g. the source rows) is collected and not counted.
+    public BenchmarkResult measureRetained(String name, String params, Supplier<Object> build) {
+        long before = settledHeapUsed();
+        Object retained = build.get();
+        long after = settledHeapUsed();
+        consume(retained);
+
+        BenchmarkResult result = BenchmarkResult.retained(name, params, Math.max(0, after - before));
+        results.add(result);
+        System.out.println(result);
+        return result;
+    }
+
+    // Repeats GC until the used heap stops shrinking, so garbage left by earlier work is not measured
+    private static long settledHeapUsed() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+
+        for (int i = 0; i < MAX_GC_ROUNDS; i++) {
+            memory.gc();
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used - used / 100) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    // Runs the operation for the warmup time and returns how many calls make up one sample
+    private int warmup(Operation operation) throws Exception {
+        long deadline = System.nanoTime() + warmupMillis * 1_000_000;
+        long calls = 0;
+        long start = System.nanoTime();
+
+        do {
+            operation.run();
+            calls++;
+        } while (System.nanoTime() < deadline);
+
+        long perCall = Math.max(1, (System.nanoTime() - start) / calls);
+        return (int) Math.max(1, Math.min(100_000, TARGET_SAMPLE_NANOS / perCall));
+    }
+
+    // Bytes allocated so far by the current thread (HotSpot only); -1 when not supported
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+
+    private static long percentile(long[] sorted, int count, double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    public List<BenchmarkResult> getResults() {
+        return results;
+    }
+
+    public void writeCsv(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(BenchmarkResult.CSV_HEADER);
+            writer.newLine();
+            for (BenchmarkResult result : results) {
+                writer.write(result.toCsv());
+                writer.newLine();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Operation {
+        void run() throws Exception;
+    }
+}
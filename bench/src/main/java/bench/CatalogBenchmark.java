@@ -0,0 +1,485 @@
+package bench;
+
+import catalog.ColumnarCatalog;
+import catalog.InMemoryCatalog;
+import dao.AsyncClothingItemDAO;
+import dao.ClothingItemDAO;
+import dao.ItemBatchLoader;
+import db.DatabaseConnection;
+import db.SchemaMigrator;
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+import store.MappedItemStore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+// Benchmarks for the model, in-memory catalogs and (with --db) the DAO against a local Postgres.
+// The parts that need no database also exist as JMH benchmarks in bench.jmh; this runner is kept for
+// the database runs and the CSV that can be diffed between commits. Build with mvn package, then
+// java -cp bench/target/benchmarks.jar bench.CatalogBenchmark ...
+//
+// Usage: java bench.CatalogBenchmark [--sizes 1000,100000] [--warmup ms] [--measure ms] [--out file.csv] [--db]
+//        [--indexes [rows]]
+//
+// --indexes (with --db) loads 1,000,000 rows (or the given count), checks the search plans with
+// IndexCheck and times the searches with and without the V2 indexes.
+//
+// --db TRUNCATES clothing_items in the benchmark database. It connects to
+// -Dbench.db.url (default jdbc:postgresql://localhost:5432/clothing_store_bench),
+// -Dbench.db.user and -Dbench.db.password, never to the application database.
+public class CatalogBenchmark {
+
+    private static final int BULK_CHUNK = 1000;
+    private static final int ASYNC_CALLS = 100;
+
+    // Far above any dataset ID so the contract check never touches benchmark rows
+    private static final int CONTRACT_FIRST_ID = 2_000_000_000;
+
+    private static final String DB_URL =
+            System.getProperty("bench.db.url", "jdbc:postgresql://localhost:5432/clothing_store_bench");
+    private static final String DB_USER = System.getProperty("bench.db.user", "postgres");
+    private static final String DB_PASSWORD = System.getProperty("bench.db.password", "1234");
+    private static final int DB_POOL_SIZE = Integer.getInteger("bench.db.poolSize", 10);
+
+    private static final int INDEX_BENCH_ROWS = 1_000_000;
+
+    private final BenchmarkRunner runner;
+    private final ClothingItemDAO dao = new ClothingItemDAO();
+
+    public CatalogBenchmark(BenchmarkRunner runner) {
+        this.runner = runner;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {1_000, 100_000};
+        long warmup = 1_000;
+        long measure = 3_000;
+        Path out = Paths.get("bench-results.csv");
+        boolean withDatabase = false;
+        int indexRows = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes": sizes = parseSizes(args[++i]); break;
+                case "--warmup": warmup = Long.parseLong(args[++i]); break;
+                case "--measure": measure = Long.parseLong(args[++i]); break;
+                case "--out": out = Paths.get(args[++i]); break;
+                case "--db": withDatabase = true; break;
+                case "--indexes":
+                    indexRows = i + 1 < args.length && !args[i + 1].startsWith("--")
+                            ? Integer.parseInt(args[++i]) : INDEX_BENCH_ROWS;
+                    break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, measure);
+        CatalogBenchmark benchmark = new CatalogBenchmark(runner);
+
+        benchmark.modelBenchmarks();
+        for (int size : sizes) {
+            benchmark.catalogBenchmarks(size);
+            benchmark.storeBenchmarks(size);
+        }
+
+        if (withDatabase) {
+            DatabaseConnection.configure(DB_URL, DB_USER, DB_PASSWORD, DB_POOL_SIZE);
+            try {
+                new SchemaMigrator().migrate();
+                StoreContract.verify(benchmark.dao, CONTRACT_FIRST_ID);
+                for (int size : sizes) {
+                    benchmark.loadTable(size);
+                    benchmark.daoBenchmarks(size);
+                    benchmark.bulkInsertBenchmarks(size);
+                    benchmark.asyncBenchmarks(size);
+                    benchmark.statementCacheBenchmarks(size);
+                    benchmark.partitionBenchmarks(size);
+                }
+                if (indexRows > 0) {
+                    benchmark.indexBenchmarks(indexRows);
+                }
+            } finally {
+                DatabaseConnection.shutdown();
+            }
+        }
+
+        runner.writeCsv(out);
+        System.out.println("Results written to " + out.toAbsolutePath());
+    }
+
+    // -------------------- Model --------------------
+
+    public void modelBenchmarks() throws Exception {
+        List<ClothingItem> items = Datasets.items(1024, 1, 42);
+        Cursor cursor = new Cursor(items.size());
+
+        runner.run("model.toString", "", () -> BenchmarkRunner.consume(items.get(cursor.next()).toString()));
+        runner.run("model.getPriceLabel", "", () -> BenchmarkRunner.consume(items.get(cursor.next()).getPriceLabel()));
+        runner.run("model.getDiscountedPrice", "",
+                () -> BenchmarkRunner.consume(items.get(cursor.next()).getDiscountedPrice(20)));
+    }
+
+    // -------------------- In-memory catalogs --------------------
+
+    public void catalogBenchmarks(int size) throws Exception {
+        String params = "size=" + size;
+        List<ClothingItem> items = Datasets.items(size, 1, 42);
+
+        InMemoryCatalog catalog = new InMemoryCatalog(dao);
+        catalog.load(items);
+
+        runner.run("catalog.getById", params,
+                () -> BenchmarkRunner.consume(catalog.getById(randomId(size))));
+        runner.run("catalog.searchByPriceRange", params,
+                () -> BenchmarkRunner.consume(catalog.searchByPriceRange(10_000, 12_000)));
+        runner.run("catalog.getByType", params,
+                () -> BenchmarkRunner.consume(catalog.getByType("JACKET")));
+
+        ColumnarCatalog columns = new ColumnarCatalog();
+        items.forEach(columns::add);
+        columns.trimToSize();
+
+        runner.run("columnar.getById", params,
+                () -> BenchmarkRunner.consume(columns.getById(randomId(size))));
+        runner.run("columnar.searchByPriceRange", params,
+                () -> BenchmarkRunner.consume(columns.searchByPriceRange(10_000, 12_000)));
+        runner.run("columnar.getByType", params,
+                () -> BenchmarkRunner.consume(columns.getByType("JACKET")));
+
+        // Measured heap of the same rows in each layout; the generated source list is garbage by then
+        BenchmarkResult objectList =
+                runner.measureRetained("memory.objectList", params, () -> Datasets.items(size, 1, 42));
+        runner.measureRetained("memory.inMemoryCatalog", params, () -> {
+            InMemoryCatalog loaded = new InMemoryCatalog(dao);
+            loaded.load(Datasets.items(size, 1, 42));
+            return loaded;
+        });
+        BenchmarkResult columnar = runner.measureRetained("memory.columnar", params, () -> {
+            ColumnarCatalog loaded = new ColumnarCatalog();
+            Datasets.items(size, 1, 42).forEach(loaded::add);
+            loaded.trimToSize();
+            return loaded;
+        });
+
+        // The columnar layout exists to be smaller than the objects it replaces
+        if (columnar.getRetainedBytes() >= objectList.getRetainedBytes()) {
+            throw new IllegalStateException("Columnar catalog retains " + columnar.getRetainedBytes() +
+                    " bytes, not less than the " + objectList.getRetainedBytes() + " bytes of the object list.");
+        }
+    }
+
+    // -------------------- Embedded store --------------------
+
+    // Same operations as daoBenchmarks, against MappedItemStore in a temporary directory
+    public void storeBenchmarks(int size) throws Exception {
+        String params = "size=" + size;
+        Path directory = Files.createTempDirectory("item-store-bench");
+
+        try (MappedItemStore store = new MappedItemStore(directory)) {
+            StoreContract.verify(store, CONTRACT_FIRST_ID);
+            store.insertAll(Datasets.items(size, 1, 42));
+
+            runner.run("store.getById", params, () -> BenchmarkRunner.consume(store.getById(randomId(size))));
+            runner.run("store.searchByPriceRange", params,
+                    () -> BenchmarkRunner.consume(store.searchByPriceRange(10_000, 12_000)));
+            runner.run("store.updateShirt", params, () -> {
+                int id = randomId(size);
+                BenchmarkRunner.consume(store.updateShirt(id, "Bench Shirt " + id, "M", 9990, "Long"));
+            });
+            runner.run("store.insertAndDelete", params, () -> {
+                int id = size + 1 + ThreadLocalRandom.current().nextInt(1_000_000);
+                store.insertShirt(new Shirt(id, "Bench Shirt", "M", 9990, "Short"));
+                store.deleteById(id);
+            });
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    // -------------------- DAO (needs --db) --------------------
+
+    public void loadTable(int size) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE clothing_items");
+        }
+        dao.insertAllWithCopy(Datasets.items(size, 1, 42));
+
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE clothing_items");
+        }
+    }
+
+    public void daoBenchmarks(int size) throws Exception {
+        String params = "size=" + size;
+
+        runner.run("dao.getById", params, () -> BenchmarkRunner.consume(dao.getById(randomId(size))));
+        runner.run("dao.searchByName", params, () -> BenchmarkRunner.consume(dao.searchByNamePage("Parka 1", 20, null)));
+        runner.run("dao.searchByPriceRange.page", params,
+                () -> BenchmarkRunner.consume(dao.searchByPriceRangePage(10_000, 12_000, 20, null)));
+        runner.run("dao.getByType.page", params, () -> BenchmarkRunner.consume(dao.getByTypePage("SHIRT", 20, null)));
+        runner.run("dao.updateShirt", params, () -> {
+            int id = randomId(size);
+            BenchmarkRunner.consume(dao.updateShirt(id, "Bench Shirt " + id, "M", 9990, "Long"));
+        });
+        runner.run("dao.insertAndDelete", params, () -> {
+            int id = size + 1 + ThreadLocalRandom.current().nextInt(1_000_000);
+            dao.insertShirt(new Shirt(id, "Bench Shirt", "M", 9990, "Short"));
+            dao.deleteById(id);
+        });
+
+        // Full scan through mapRow; measures row mapping throughput
+        runner.run("dao.streamAll.mapRow", params, () -> {
+            try (Stream<ClothingItem> rows = dao.streamAll()) {
+                BenchmarkRunner.consume(rows.count());
+            }
+        });
+    }
+
+    public void bulkInsertBenchmarks(int size) throws Exception {
+        String params = "size=" + size + ";chunk=" + BULK_CHUNK;
+        int firstId = size + 10_000_000;
+        List<ClothingItem> chunk = Datasets.items(BULK_CHUNK, firstId, 7);
+
+        runner.run("dao.insert.perRow", params, () -> {
+            for (ClothingItem item : chunk) {
+                if (item instanceof Shirt) {
+                    dao.insertShirt((Shirt) item);
+                } else {
+                    dao.insertJacket((Jacket) item);
+                }
+            }
+            deleteFrom(firstId);
+        });
+        runner.run("dao.insertAll.batch", params, () -> {
+            dao.insertAll(chunk);
+            deleteFrom(firstId);
+        });
+        runner.run("dao.insertAll.copy", params, () -> {
+            dao.insertAllWithCopy(chunk);
+            deleteFrom(firstId);
+        });
+    }
+
+    public void asyncBenchmarks(int size) throws Exception {
+        String params = "size=" + size + ";calls=" + ASYNC_CALLS;
+
+        runner.run("dao.getById.sequential", params, () -> {
+            for (int i = 0; i < ASYNC_CALLS; i++) {
+                BenchmarkRunner.consume(dao.getById(randomId(size)));
+            }
+        });
+
+        try (AsyncClothingItemDAO async = new AsyncClothingItemDAO(dao)) {
+            runner.run("dao.getById.async", params, () -> {
+                List<CompletableFuture<ClothingItem>> calls = new ArrayList<>(ASYNC_CALLS);
+                for (int i = 0; i < ASYNC_CALLS; i++) {
+                    calls.add(async.getById(randomId(size)));
+                }
+                CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).join();
+            });
+        }
+
+        runner.run("dao.getByIds", params, () -> {
+            int[] ids = new int[ASYNC_CALLS];
+            for (int i = 0; i < ASYNC_CALLS; i++) {
+                ids[i] = randomId(size);
+            }
+            BenchmarkRunner.consume(dao.getByIds(ids));
+        });
+
+        // Concurrent single lookups coalesced by the loader into a few getByIds queries
+        try (ItemBatchLoader loader = new ItemBatchLoader(dao)) {
+            runner.run("dao.getById.batchLoader", params, () -> {
+                List<CompletableFuture<ClothingItem>> calls = new ArrayList<>(ASYNC_CALLS);
+                for (int i = 0; i < ASYNC_CALLS; i++) {
+                    calls.add(loader.load(randomId(size)));
+                }
+                CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).join();
+            });
+        }
+    }
+
+    // Same lookups with server-side prepared statements off (prepareThreshold=0) and on
+    public void statementCacheBenchmarks(int size) throws Exception {
+        int[] thresholds = {0, DatabaseConnection.PREPARE_THRESHOLD};
+
+        try {
+            for (int threshold : thresholds) {
+                DatabaseConnection.configure(DB_URL, DB_USER, DB_PASSWORD, DB_POOL_SIZE, threshold);
+                String params = "size=" + size + ";prepareThreshold=" + threshold;
+
+                runner.run("dao.getById.statementCache", params,
+                        () -> BenchmarkRunner.consume(dao.getById(randomId(size))));
+                runner.run("dao.searchByName.statementCache", params,
+                        () -> BenchmarkRunner.consume(dao.searchByNamePage("Parka 1", 20, null)));
+            }
+        } finally {
+            DatabaseConnection.configure(DB_URL, DB_USER, DB_PASSWORD, DB_POOL_SIZE);
+        }
+    }
+
+    // The DAO's search statements with the V2 indexes and without them. The indexes are dropped inside a
+    // transaction that is rolled back afterwards, so all runs use the one connection that holds it.
+    public void indexBenchmarks(int rows) throws Exception {
+        loadTable(rows);
+        IndexCheck.verify();
+
+        String pattern = "%" + IndexCheck.SEARCH_NAME + "%";
+        Object[][] searches = {
+                {"index.searchByName", ClothingItemDAO.SELECT_BY_NAME_SQL, new Object[]{pattern}},
+                {"index.searchByName.page", ClothingItemDAO.PAGE_BY_NAME_SQL, new Object[]{pattern, 0, 21}},
+                {"index.searchByPriceRange", ClothingItemDAO.SELECT_BY_PRICE_RANGE_SQL,
+                        new Object[]{IndexCheck.RANGE_MIN, IndexCheck.RANGE_MAX}},
+                {"index.searchByPriceRange.page", ClothingItemDAO.PAGE_BY_PRICE_RANGE_SQL,
+                        new Object[]{IndexCheck.RANGE_MIN, 12_000.0, Double.POSITIVE_INFINITY, Integer.MAX_VALUE, 21}}
+        };
+
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                for (boolean indexed : new boolean[]{true, false}) {
+                    if (!indexed) {
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("DROP INDEX " + IndexCheck.NAME_INDEX);
+                            statement.execute("DROP INDEX " + IndexCheck.PRICE_INDEX);
+                        }
+                    }
+
+                    String params = "rows=" + rows + ";indexes=" + (indexed ? "V2" : "none");
+                    for (Object[] search : searches) {
+                        runQuery(connection, (String) search[0], params, (String) search[1], (Object[]) search[2]);
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private void runQuery(Connection connection, String name, String params, String sql, Object[] args)
+            throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            runner.run(name, params, () -> {
+                int count = 0;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        count++;
+                    }
+                }
+                BenchmarkRunner.consume(count);
+            });
+        }
+    }
+
+    // Partitioned clothing_items against a single-table copy of the same rows with the old layout.
+    // partition.vacuumAnalyze vacuums the whole table in both layouts. partition.vacuumAnalyzePartition
+    // is the partitioned-only case of vacuuming just the partition that changed.
+    public void partitionBenchmarks(int size) throws Exception {
+        String single = "clothing_items_single";
+
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + single);
+            statement.execute("CREATE TABLE " + single + " (LIKE clothing_items INCLUDING DEFAULTS)");
+            statement.execute("INSERT INTO " + single + " SELECT * FROM clothing_items");
+            statement.execute("ALTER TABLE " + single + " ADD PRIMARY KEY (item_id)");
+            statement.execute("CREATE INDEX ON " + single + " (type, item_id)");
+            statement.execute("CREATE INDEX ON " + single + " (price, item_id)");
+            statement.execute("ANALYZE " + single);
+        }
+
+        try {
+            String[][] layouts = {{"partitioned", "clothing_items"}, {"single", single}};
+
+            for (String[] layout : layouts) {
+                String params = "size=" + size + ";layout=" + layout[0];
+                String table = layout[1];
+
+                runSql("partition.scanType", params,
+                        "SELECT count(*), sum(price) FROM " + table + " WHERE type = 'JACKET'");
+                runSql("partition.getByType.page", params,
+                        "SELECT item_id, name, price FROM " + table + " WHERE type = 'SHIRT' ORDER BY item_id LIMIT 20");
+                runSql("partition.scanAll", params, "SELECT count(*), sum(price) FROM " + table);
+                runSql("partition.vacuumAnalyze", params, "VACUUM (ANALYZE) " + table);
+            }
+
+            runSql("partition.vacuumAnalyzePartition", "size=" + size + ";layout=partitioned;partition=jacket",
+                    "VACUUM (ANALYZE) clothing_items_jacket");
+        } finally {
+            try (Connection connection = DatabaseConnection.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + single);
+            }
+        }
+    }
+
+    private void runSql(String name, String params, String sql) throws Exception {
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            runner.run(name, params, () -> BenchmarkRunner.consume(statement.execute(sql)));
+        }
+    }
+
+    // -------------------- Helpers --------------------
+
+    private static void deleteFrom(int firstId) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM clothing_items WHERE item_id >= ?")) {
+            statement.setInt(1, firstId);
+            statement.executeUpdate();
+        }
+    }
+
+    private static int randomId(int size) {
+        return 1 + ThreadLocalRandom.current().nextInt(size);
+    }
+
+    private static int[] parseSizes(String text) {
+        String[] parts = text.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    // Cycles through a fixed set of items so every call touches a different object
+    private static final class Cursor {
+        private final int size;
+        private int position;
+
+        private Cursor(int size) {
+            this.size = size;
+        }
+
+        private int next() {
+            position = position + 1 == size ? 0 : position + 1;
+            return position;
+        }
+    }
+}
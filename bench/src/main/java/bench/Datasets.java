@@ -0,0 +1,42 @@
+package bench;
+
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Generates reproducible catalogs for benchmarks (same seed = same items)
+public class Datasets {
+
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL", "XXL"};
+    private static final String[] SLEEVES = {"Short", "Long"};
+    private static final String[] SEASONS = {"Winter", "Summer", "Spring", "Autumn"};
+    private static final String[] COLORS = {"Black", "White", "Blue", "Red", "Green", "Grey"};
+    private static final String[] SHIRT_NAMES = {"Oxford Shirt", "Linen Shirt", "Polo", "Flannel Shirt", "T-Shirt"};
+    private static final String[] JACKET_NAMES = {"Denim Jacket", "Parka", "Bomber Jacket", "Rain Jacket", "Puffer"};
+
+    public static List<ClothingItem> items(int count, int firstId, long seed) {
+        Random random = new Random(seed);
+        List<ClothingItem> items = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int id = firstId + i;
+            String color = COLORS[random.nextInt(COLORS.length)];
+            String size = SIZES[random.nextInt(SIZES.length)];
+            // Prices in KZT, rounded to 10
+            double price = 2000 + random.nextInt(4800) * 10;
+
+            if (random.nextBoolean()) {
+                String name = color + " " + SHIRT_NAMES[random.nextInt(SHIRT_NAMES.length)] + " " + id;
+                items.add(new Shirt(id, name, size, price, SLEEVES[random.nextInt(SLEEVES.length)]));
+            } else {
+                String name = color + " " + JACKET_NAMES[random.nextInt(JACKET_NAMES.length)] + " " + id;
+                items.add(new Jacket(id, name, size, price, SEASONS[random.nextInt(SEASONS.length)]));
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,93 @@
+package bench;
+
+import dao.ClothingItemDAO;
+import db.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Checks with EXPLAIN that the DAO's search statements use the indexes from V2__search_indexes.sql.
+// Needs a large, analyzed clothing_items table: on a small one a sequential scan is the cheaper plan.
+public final class IndexCheck {
+
+    public static final String NAME_INDEX = "idx_clothing_items_name_trgm";
+    public static final String PRICE_INDEX = "idx_clothing_items_price_id";
+
+    // Selective on the Datasets catalog: only IDs containing 12345 match
+    public static final String SEARCH_NAME = "Parka 12345";
+    public static final double RANGE_MIN = 10_000;
+    public static final double RANGE_MAX = 10_100;
+
+    // Index scans are printed as "Index Scan using x", "Index Scan Backward using x" or "Bitmap Index Scan on x"
+    private static final Pattern INDEX_SCAN =
+            Pattern.compile("(?:Bitmap Index Scan on|Index Scan(?: Backward)? using|Index Only Scan(?: Backward)? using) (\\S+)");
+
+    private IndexCheck() {
+    }
+
+    public static void verify() throws SQLException {
+        String pattern = "%" + SEARCH_NAME + "%";
+
+        check("searchByName", ClothingItemDAO.SELECT_BY_NAME_SQL, NAME_INDEX, pattern);
+        check("searchByNamePage", ClothingItemDAO.PAGE_BY_NAME_SQL, NAME_INDEX, pattern, 0, 21);
+        check("searchByPriceRange", ClothingItemDAO.SELECT_BY_PRICE_RANGE_SQL, PRICE_INDEX, RANGE_MIN, RANGE_MAX);
+        check("searchByPriceRangePage", ClothingItemDAO.PAGE_BY_PRICE_RANGE_SQL, PRICE_INDEX,
+                RANGE_MIN, 12_000.0, Double.POSITIVE_INFINITY, Integer.MAX_VALUE, 21);
+    }
+
+    private static void check(String method, String sql, String index, Object... params) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            // On a partitioned table the plan names the partitions' indexes, which belong to the parent index
+            Set<String> accepted = partitionIndexes(connection, index);
+            String plan = explain(connection, sql, params);
+
+            Matcher matcher = INDEX_SCAN.matcher(plan);
+            while (matcher.find()) {
+                if (accepted.contains(matcher.group(1))) {
+                    return;
+                }
+            }
+            throw new IllegalStateException(method + " does not use " + index + ":\n" + plan);
+        }
+    }
+
+    private static Set<String> partitionIndexes(Connection connection, String index) throws SQLException {
+        Set<String> names = new HashSet<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT c.relname FROM pg_partition_tree(?::regclass) t JOIN pg_class c ON c.oid = t.relid")) {
+            statement.setString(1, index);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    names.add(resultSet.getString(1));
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            throw new IllegalStateException("Index " + index + " does not exist; run the migrations first.");
+        }
+        return names;
+    }
+
+    private static String explain(Connection connection, String sql, Object... params) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+}
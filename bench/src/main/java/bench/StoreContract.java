@@ -0,0 +1,139 @@
+package bench;
+
+import dao.ClothingItemStore;
+import exception.OptimisticLockException;
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// The behaviour every ClothingItemStore must share (see the rules on the interface), checked against
+// a live store. CatalogBenchmark runs it on each backend before timing it, so numbers are only
+// compared between implementations that agree. Uses item IDs firstId..firstId+3 and removes them.
+public final class StoreContract {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String TOO_LONG = "22001";
+
+    private StoreContract() {
+    }
+
+    public static void verify(ClothingItemStore store, int firstId) throws SQLException {
+        int shirtId = firstId;
+        int jacketId = firstId + 1;
+        int missingId = firstId + 2;
+        int batchId = firstId + 3;
+
+        try {
+            check(store.insertShirt(new Shirt(shirtId, "Contract Shirt", "M", 100, "Long")), "insertShirt");
+            check(store.insertJacket(new Jacket(jacketId, "Contract Parka", "L", 300, "Winter")), "insertJacket");
+            expectState(UNIQUE_VIOLATION, "duplicate insert",
+                    () -> store.insertShirt(new Shirt(shirtId, "Duplicate", "S", 1, "Short")));
+            expectState(UNIQUE_VIOLATION, "duplicate ID with another type",
+                    () -> store.insertJacket(new Jacket(shirtId, "Duplicate", "S", 1, "Winter")));
+            expectState(TOO_LONG, "too long name",
+                    () -> store.insertShirt(new Shirt(missingId, "x".repeat(101), "S", 1, "Short")));
+
+            ClothingItem shirt = store.getById(shirtId);
+            check(shirt instanceof Shirt && shirt.getName().equals("Contract Shirt") && shirt.getVersion() == 0,
+                    "getById returns the stored shirt");
+            check(((Shirt) shirt).getSleeveType().equals("Long"), "getById keeps sleeve type");
+            check(store.getById(missingId) == null, "getById of a missing ID is null");
+
+            Map<Integer, ClothingItem> byIds = store.getByIds(new int[]{shirtId, jacketId, missingId, shirtId});
+            check(byIds.size() == 2 && byIds.containsKey(shirtId) && byIds.containsKey(jacketId), "getByIds");
+
+            check(containsId(store.getByType("SHIRT"), shirtId) && !containsId(store.getByType("SHIRT"), jacketId),
+                    "getByType");
+            check(containsId(store.getAll(), jacketId), "getAll");
+
+            check(!store.updateShirt(jacketId, "Wrong", "M", 1, "Short"), "updateShirt ignores jackets");
+            check(store.updateShirt(shirtId, "Contract Shirt 2", "L", 120, "Short"), "updateShirt");
+            check(store.getById(shirtId).getVersion() == 1, "update increments the version");
+
+            Shirt stale = new Shirt(shirtId, "Stale", "M", 1, "Short");
+            stale.setVersion(0);
+            expectConflict(() -> store.updateShirt(stale));
+
+            Shirt fresh = (Shirt) store.getById(shirtId);
+            Shirt edited = new Shirt(shirtId, "Contract Shirt 3", fresh.getSize(), 130, fresh.getSleeveType());
+            edited.setVersion(fresh.getVersion());
+            check(store.updateShirt(edited) && edited.getVersion() == 2, "versioned updateShirt");
+            check(store.getById(shirtId).getName().equals("Contract Shirt 3"), "versioned update is stored");
+
+            Jacket jacket = (Jacket) store.getById(jacketId);
+            check(store.updateJacket(jacket) && jacket.getVersion() == 1, "versioned updateJacket");
+
+            check(containsId(store.searchByName("contract p"), jacketId), "searchByName is case-insensitive");
+            check(!containsId(store.searchByName("contract p"), shirtId), "searchByName filters");
+
+            List<ClothingItem> range = store.searchByPriceRange(130, 300);
+            check(indexOf(range, jacketId) >= 0 && indexOf(range, jacketId) < indexOf(range, shirtId),
+                    "searchByPriceRange orders by price descending");
+            check(!containsId(store.searchByMinPrice(131), shirtId) && containsId(store.searchByMinPrice(131), jacketId),
+                    "searchByMinPrice");
+
+            expectState(UNIQUE_VIOLATION, "insertAll with an existing ID", () -> store.insertAll(Arrays.asList(
+                    new Shirt(batchId, "Batch", "M", 1, "Short"),
+                    new Shirt(shirtId, "Batch duplicate", "M", 1, "Short"))));
+            check(store.getById(batchId) == null, "failed insertAll inserts nothing");
+
+            check(store.deleteById(shirtId), "deleteById");
+            check(!store.deleteById(shirtId), "deleteById of a missing ID");
+            check(store.getById(shirtId) == null, "deleted item is gone");
+        } finally {
+            for (int itemId = firstId; itemId <= batchId; itemId++) {
+                store.deleteById(itemId);
+            }
+        }
+    }
+
+    private static boolean containsId(List<ClothingItem> items, int itemId) {
+        return indexOf(items, itemId) >= 0;
+    }
+
+    private static int indexOf(List<ClothingItem> items, int itemId) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getItemId() == itemId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void check(boolean condition, String rule) {
+        if (!condition) {
+            throw new IllegalStateException("Store contract violated: " + rule);
+        }
+    }
+
+    private static void expectState(String sqlState, String rule, StoreCall call) throws SQLException {
+        try {
+            call.run();
+        } catch (SQLException e) {
+            if (sqlState.equals(e.getSQLState())) {
+                return;
+            }
+            throw e;
+        }
+        throw new IllegalStateException("Store contract violated: " + rule + " should fail with " + sqlState);
+    }
+
+    private static void expectConflict(StoreCall call) throws SQLException {
+        try {
+            call.run();
+        } catch (OptimisticLockException e) {
+            return;
+        }
+        throw new IllegalStateException("Store contract violated: stale versioned update should conflict");
+    }
+
+    @FunctionalInterface
+    private interface StoreCall {
+        void run() throws SQLException;
+    }
+}
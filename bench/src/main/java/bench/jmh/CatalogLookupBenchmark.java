@@ -0,0 +1,85 @@
+package bench.jmh;
+
+import bench.Datasets;
+import catalog.ColumnarCatalog;
+import catalog.InMemoryCatalog;
+import dao.ClothingItemDAO;
+import model.ClothingItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// JMH version of CatalogBenchmark.catalogBenchmarks: the same lookups on InMemoryCatalog and ColumnarCatalog
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogLookupBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private InMemoryCatalog catalog;
+    private ColumnarCatalog columns;
+
+    @Setup
+    public void setUp() {
+        List<ClothingItem> items = Datasets.items(size, 1, 42);
+
+        // The DAO is only used by load(); these catalogs are filled from the dataset
+        catalog = new InMemoryCatalog(new ClothingItemDAO());
+        catalog.load(items);
+
+        columns = new ColumnarCatalog();
+        items.forEach(columns::add);
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(size);
+    }
+
+    @Benchmark
+    public ClothingItem catalogGetById() throws SQLException {
+        return catalog.getById(randomId());
+    }
+
+    @Benchmark
+    public List<ClothingItem> catalogSearchByPriceRange() throws SQLException {
+        return catalog.searchByPriceRange(10_000, 12_000);
+    }
+
+    @Benchmark
+    public List<ClothingItem> catalogGetByType() throws SQLException {
+        return catalog.getByType("JACKET");
+    }
+
+    @Benchmark
+    public ColumnarCatalog.ItemView columnarGetById() {
+        return columns.getById(randomId());
+    }
+
+    @Benchmark
+    public List<ColumnarCatalog.ItemView> columnarSearchByPriceRange() {
+        return columns.searchByPriceRange(10_000, 12_000);
+    }
+
+    @Benchmark
+    public List<ColumnarCatalog.ItemView> columnarGetByType() {
+        return columns.getByType("JACKET");
+    }
+}
@@ -0,0 +1,55 @@
+package bench.jmh;
+
+import bench.Datasets;
+import model.ClothingItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JMH version of CatalogBenchmark.modelBenchmarks: formatting and discount math on the model classes
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    private List<ClothingItem> items;
+    private int position;
+
+    @Setup
+    public void setUp() {
+        items = Datasets.items(1024, 1, 42);
+    }
+
+    private ClothingItem next() {
+        position = (position + 1) & 1023;
+        return items.get(position);
+    }
+
+    @Benchmark
+    public String toStringFormat() {
+        return next().toString();
+    }
+
+    @Benchmark
+    public String priceLabel() {
+        return next().getPriceLabel();
+    }
+
+    @Benchmark
+    public double discountedPrice() {
+        return next().getDiscountedPrice(20);
+    }
+}
@@ -0,0 +1,80 @@
+package bench.jmh;
+
+import bench.Datasets;
+import model.ClothingItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import store.MappedItemStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// JMH version of CatalogBenchmark.storeBenchmarks: MappedItemStore in a temporary directory
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Path directory;
+    private MappedItemStore store;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("item-store-jmh");
+        store = new MappedItemStore(directory);
+        store.insertAll(Datasets.items(size, 1, 42));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(size);
+    }
+
+    @Benchmark
+    public ClothingItem getById() throws SQLException {
+        return store.getById(randomId());
+    }
+
+    @Benchmark
+    public List<ClothingItem> searchByPriceRange() throws SQLException {
+        return store.searchByPriceRange(10_000, 12_000);
+    }
+
+    @Benchmark
+    public boolean updateShirt() throws SQLException {
+        int id = randomId();
+        return store.updateShirt(id, "Bench Shirt " + id, "M", 9990, "Long");
+    }
+}
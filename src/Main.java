@@ -1,9 +1,76 @@
+import dao.CachingClothingItemDAO;
+import db.DatabaseConnection;
+import db.SchemaMigrator;
+import exception.InvalidInputException;
+import metrics.DaoMetrics;
 import menu.Menu;
 import menu.MenuManager;
+import menu.ScriptRunner;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 
 public class Main {
     public static void main(String[] args) {
-        Menu menu = new MenuManager();
-        menu.run();
+        // --script <file> runs commands from a file without prompts; "-" reads them from stdin
+        String script = null;
+        if (args.length == 2 && args[0].equals("--script")) {
+            script = args[1];
+        } else if (args.length > 0) {
+            System.out.println("Usage: Main [--script <file> | --script -]");
+            return;
+        }
+
+        DaoMetrics.get().registerMBean();
+
+        try {
+            int applied = new SchemaMigrator().migrate();
+            if (applied > 0 && script == null) {
+                System.out.println("Applied " + applied + " schema migration(s).");
+            }
+        } catch (SQLException e) {
+            System.out.println("Database error: " + e.getMessage());
+        }
+
+        boolean ok = true;
+        try {
+            if (script != null) {
+                ok = runScript(script);
+            } else {
+                Menu menu = new MenuManager();
+                menu.run();
+            }
+        } finally {
+            DatabaseConnection.shutdown();
+        }
+
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean runScript(String script) {
+        BufferedWriter output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+
+        try (BufferedReader input = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            new ScriptRunner(new CachingClothingItemDAO()).run(input, output);
+            return true;
+        } catch (InvalidInputException e) {
+            System.err.println("Error: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("Database error: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Cannot read script: " + e.getMessage());
+        }
+        return false;
     }
 }
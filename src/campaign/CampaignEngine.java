@@ -0,0 +1,285 @@
+package campaign;
+
+import dao.ClothingItemDAO;
+import db.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Applies and reverts discount campaigns with one set-based UPDATE per campaign, so the cost does
+// not depend on round trips per item. Original prices are saved in campaign_price_backup.
+public class CampaignEngine implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(CampaignEngine.class.getName());
+
+    private static final String CAMPAIGN_COLUMNS =
+            "campaign_id, percent, type, min_price, max_price, name_contains, starts_at, ends_at";
+
+    // Saved when scheduled, so resume() can start it after a restart
+    private static final String SAVE_CAMPAIGN_SQL =
+            "INSERT INTO discount_campaigns (" + CAMPAIGN_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Also marks a campaign saved by schedule() as applied; one that is already applied is left alone
+    private static final String INSERT_CAMPAIGN_SQL =
+            "INSERT INTO discount_campaigns (" + CAMPAIGN_COLUMNS + ", applied_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, now()) " +
+                    "ON CONFLICT (campaign_id) DO UPDATE SET applied_at = now() " +
+                    "WHERE discount_campaigns.applied_at IS NULL";
+
+    // Campaigns that still have to start or to be reverted at their end time
+    private static final String PENDING_CAMPAIGNS_SQL =
+            "SELECT " + CAMPAIGN_COLUMNS + ", applied_at IS NOT NULL AS applied FROM discount_campaigns " +
+                    "WHERE reverted_at IS NULL AND (applied_at IS NULL OR ends_at IS NOT NULL)";
+
+    // SQLSTATE unique_violation, as a plain INSERT of an existing campaign_id would report
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    // Items already discounted by another running campaign are skipped so reverts never overlap
+    private static final String APPLY_SQL_HEAD =
+            "WITH targets AS (" +
+                    "SELECT item_id, price FROM clothing_items c " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM campaign_price_backup b WHERE b.item_id = c.item_id)";
+
+    private static final String APPLY_SQL_TAIL =
+            " FOR UPDATE), " +
+                    "saved AS (" +
+                    "INSERT INTO campaign_price_backup (campaign_id, item_id, original_price, discounted_price) " +
+                    "SELECT ?, item_id, price, price * (1 - ? / 100.0) FROM targets " +
+                    "RETURNING item_id, discounted_price) " +
+                    "UPDATE clothing_items c SET price = s.discounted_price, version = c.version + 1 FROM saved s WHERE c.item_id = s.item_id";
+
+    // Prices changed by someone else during the campaign are left alone. Both price updates bump
+    // version so optimistic updates based on the old price fail instead of overwriting it.
+    private static final String REVERT_PRICES_SQL =
+            "UPDATE clothing_items c SET price = b.original_price, version = c.version + 1 " +
+                    "FROM campaign_price_backup b " +
+                    "WHERE b.campaign_id = ? AND c.item_id = b.item_id AND c.price = b.discounted_price";
+
+    private static final String DELETE_BACKUP_SQL =
+            "DELETE FROM campaign_price_backup WHERE campaign_id = ?";
+
+    private static final String MARK_REVERTED_SQL =
+            "UPDATE discount_campaigns SET reverted_at = now() WHERE campaign_id = ? AND reverted_at IS NULL";
+
+    private final Runnable onPricesChanged;
+    private final ScheduledExecutorService scheduler;
+
+    public CampaignEngine() {
+        this(() -> { });
+    }
+
+    // onPricesChanged runs after every apply/revert, e.g. to clear a CachingClothingItemDAO
+    public CampaignEngine(Runnable onPricesChanged) {
+        this.onPricesChanged = onPricesChanged;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "campaign-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Returns the number of items whose price was discounted
+    public int apply(DiscountCampaign campaign) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(APPLY_SQL_HEAD);
+
+        if (campaign.getType() != null) {
+            sql.append(" AND c.type = ?");
+            params.add(campaign.getType());
+        }
+        if (campaign.getMinPrice() != null) {
+            sql.append(" AND c.price BETWEEN ? AND ?");
+            params.add(campaign.getMinPrice());
+            params.add(campaign.getMaxPrice());
+        }
+        if (campaign.getNameContains() != null) {
+            sql.append(" AND c.name ILIKE ?");
+            params.add(ClothingItemDAO.containsPattern(campaign.getNameContains()));
+        }
+        sql.append(APPLY_SQL_TAIL);
+        params.add(campaign.getCampaignId());
+        params.add(campaign.getPercent());
+
+        int updated;
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_CAMPAIGN_SQL)) {
+                    bindCampaign(statement, campaign);
+                    if (statement.executeUpdate() == 0) {
+                        throw new SQLException(campaign + " was already applied.", UNIQUE_VIOLATION);
+                    }
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < params.size(); i++) {
+                        statement.setObject(i + 1, params.get(i));
+                    }
+                    updated = statement.executeUpdate();
+                }
+
+                connection.commit();
+                DatabaseConnection.markWrite();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        onPricesChanged.run();
+        return updated;
+    }
+
+    // Restores original prices; returns the number of items restored
+    public int revert(String campaignId) throws SQLException {
+        int restored;
+
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                restored = executeUpdate(connection, REVERT_PRICES_SQL, campaignId);
+                executeUpdate(connection, DELETE_BACKUP_SQL, campaignId);
+                executeUpdate(connection, MARK_REVERTED_SQL, campaignId);
+                connection.commit();
+                DatabaseConnection.markWrite();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        onPricesChanged.run();
+        return restored;
+    }
+
+    // Applies the campaign at its start time (now if none) and reverts it at its end time (if any).
+    // The campaign is saved first, so resume() picks it up again if the process stops before then.
+    public ScheduledFuture<?> schedule(DiscountCampaign campaign) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SAVE_CAMPAIGN_SQL)) {
+            bindCampaign(statement, campaign);
+            statement.executeUpdate();
+        }
+        return scheduleStart(campaign);
+    }
+
+    // Call once on startup: schedules every saved campaign that has not started yet and every running
+    // campaign with an end time. Campaigns that are already due are applied or reverted right away.
+    // Returns the number of campaigns scheduled.
+    public int resume() throws SQLException {
+        int count = 0;
+
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PENDING_CAMPAIGNS_SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                DiscountCampaign campaign = readCampaign(resultSet);
+                if (resultSet.getBoolean("applied")) {
+                    scheduleEnd(campaign);
+                } else {
+                    scheduleStart(campaign);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private ScheduledFuture<?> scheduleStart(DiscountCampaign campaign) {
+        return scheduler.schedule(() -> {
+            try {
+                int updated = apply(campaign);
+                LOG.info(campaign + " applied to " + updated + " item(s)");
+            } catch (SQLException e) {
+                LOG.log(Level.WARNING, "Could not apply " + campaign, e);
+                return;
+            }
+            scheduleEnd(campaign);
+        }, delayUntil(campaign.getStartsAt()), TimeUnit.MILLISECONDS);
+    }
+
+    private void scheduleEnd(DiscountCampaign campaign) {
+        if (campaign.getEndsAt() == null) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            try {
+                int restored = revert(campaign.getCampaignId());
+                LOG.info(campaign + " reverted on " + restored + " item(s)");
+            } catch (SQLException e) {
+                LOG.log(Level.WARNING, "Could not revert " + campaign, e);
+            }
+        }, delayUntil(campaign.getEndsAt()), TimeUnit.MILLISECONDS);
+    }
+
+    // Parameters 1-8 in CAMPAIGN_COLUMNS order
+    private static void bindCampaign(PreparedStatement statement, DiscountCampaign campaign) throws SQLException {
+        statement.setString(1, campaign.getCampaignId());
+        statement.setDouble(2, campaign.getPercent());
+        statement.setString(3, campaign.getType());
+        statement.setObject(4, campaign.getMinPrice(), Types.DOUBLE);
+        statement.setObject(5, campaign.getMaxPrice(), Types.DOUBLE);
+        statement.setString(6, campaign.getNameContains());
+        statement.setObject(7, toTimestamp(campaign.getStartsAt()), Types.TIMESTAMP_WITH_TIMEZONE);
+        statement.setObject(8, toTimestamp(campaign.getEndsAt()), Types.TIMESTAMP_WITH_TIMEZONE);
+    }
+
+    private static DiscountCampaign readCampaign(ResultSet resultSet) throws SQLException {
+        DiscountCampaign campaign =
+                new DiscountCampaign(resultSet.getString("campaign_id"), resultSet.getDouble("percent"));
+        if (resultSet.getString("type") != null) {
+            campaign.forType(resultSet.getString("type"));
+        }
+        double minPrice = resultSet.getDouble("min_price");
+        if (!resultSet.wasNull()) {
+            campaign.forPriceRange(minPrice, resultSet.getDouble("max_price"));
+        }
+        if (resultSet.getString("name_contains") != null) {
+            campaign.forNameContaining(resultSet.getString("name_contains"));
+        }
+        OffsetDateTime startsAt = resultSet.getObject("starts_at", OffsetDateTime.class);
+        OffsetDateTime endsAt = resultSet.getObject("ends_at", OffsetDateTime.class);
+        return campaign.during(startsAt == null ? null : startsAt.toInstant(),
+                endsAt == null ? null : endsAt.toInstant());
+    }
+
+    private static OffsetDateTime toTimestamp(Instant time) {
+        return time == null ? null : time.atOffset(ZoneOffset.UTC);
+    }
+
+    private static long delayUntil(Instant time) {
+        if (time == null) {
+            return 0;
+        }
+        return Math.max(0, Duration.between(Instant.now(), time).toMillis());
+    }
+
+    private static int executeUpdate(Connection connection, String sql, String campaignId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, campaignId);
+            return statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,109 @@
+package campaign;
+
+import model.ClothingItem;
+
+import java.time.Instant;
+
+// A percentage discount on every item that matches the target filters.
+// Filters left as null are not applied; with no filters the campaign covers the whole catalog.
+public class DiscountCampaign {
+
+    private final String campaignId;
+    private final double percent;
+
+    private String type;
+    private Double minPrice;
+    private Double maxPrice;
+    private String nameContains;
+    private Instant startsAt;
+    private Instant endsAt;
+
+    public DiscountCampaign(String campaignId, double percent) {
+        if (campaignId == null || campaignId.trim().isEmpty()) {
+            throw new IllegalArgumentException("campaignId cannot be empty.");
+        }
+        if (campaignId.trim().length() > 50) {
+            throw new IllegalArgumentException("campaignId cannot be longer than 50 characters.");
+        }
+        // Same rule as Discountable.getDiscountedPrice
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("discount percent must be between 0 and 100.");
+        }
+        this.campaignId = campaignId.trim();
+        this.percent = percent;
+    }
+
+    public DiscountCampaign forType(String type) {
+        this.type = type;
+        return this;
+    }
+
+    public DiscountCampaign forPriceRange(double minPrice, double maxPrice) {
+        if (minPrice > maxPrice) {
+            throw new IllegalArgumentException("minPrice cannot be bigger than maxPrice.");
+        }
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    public DiscountCampaign forNameContaining(String namePart) {
+        this.nameContains = namePart;
+        return this;
+    }
+
+    // endsAt may be null for a campaign that runs until it is reverted by hand
+    public DiscountCampaign during(Instant startsAt, Instant endsAt) {
+        if (startsAt != null && endsAt != null && !endsAt.isAfter(startsAt)) {
+            throw new IllegalArgumentException("campaign must end after it starts.");
+        }
+        this.startsAt = startsAt;
+        this.endsAt = endsAt;
+        return this;
+    }
+
+    // The price the engine will write for this item; the SQL uses the same formula
+    public double previewPrice(ClothingItem item) {
+        return item.getDiscountedPrice(percent);
+    }
+
+    public String getCampaignId() {
+        return campaignId;
+    }
+
+    public double getPercent() {
+        return percent;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public String getNameContains() {
+        return nameContains;
+    }
+
+    public Instant getStartsAt() {
+        return startsAt;
+    }
+
+    public Instant getEndsAt() {
+        return endsAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Campaign " + campaignId + " (" + percent + "% off" +
+                (type != null ? ", type " + type : "") +
+                (minPrice != null ? ", price " + minPrice + "-" + maxPrice : "") +
+                (nameContains != null ? ", name ~ '" + nameContains + "'" : "") + ")";
+    }
+}
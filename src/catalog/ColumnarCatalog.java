@@ -0,0 +1,295 @@
+package catalog;
+
+import dao.ClothingItemDAO;
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Column-per-field storage for large catalogs: one array per column instead of one object per row.
+// type, size, sleeve type and season come from small vocabularies and are stored as dictionary codes.
+// Names are kept as UTF-8 in one byte array with a start offset per row instead of one String each.
+// Not thread-safe while loading; after loading it can be read from many threads.
+// Queries return ItemView flyweights instead of model objects (see view()).
+public class ColumnarCatalog {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final String SHIRT = "SHIRT";
+    private static final String JACKET = "JACKET";
+
+    private final StringDictionary types = new StringDictionary(Byte.MAX_VALUE);
+    private final StringDictionary sizes = new StringDictionary(Short.MAX_VALUE);
+    private final StringDictionary sleeveTypes = new StringDictionary(Short.MAX_VALUE);
+    private final StringDictionary seasons = new StringDictionary(Short.MAX_VALUE);
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    // Row r's name is nameBytes[nameOffsets[r] .. nameOffsets[r + 1]); nameOffsets has count + 1 entries
+    private int[] nameOffsets = new int[INITIAL_CAPACITY + 1];
+    private byte[] nameBytes = new byte[INITIAL_CAPACITY * 16];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] versions = new int[INITIAL_CAPACITY];
+    private byte[] typeCodes = new byte[INITIAL_CAPACITY];
+    private short[] sizeCodes = new short[INITIAL_CAPACITY];
+    private short[] sleeveCodes = new short[INITIAL_CAPACITY];
+    private short[] seasonCodes = new short[INITIAL_CAPACITY];
+
+    private int count;
+
+    // True while rows were added in increasing item_id order, which allows binary search by ID
+    private boolean sortedById = true;
+
+    // Replaces the contents with all rows of the table
+    public void load(ClothingItemDAO dao) throws SQLException {
+        clear();
+        try (Stream<ClothingItem> rows = dao.streamAll()) {
+            rows.forEach(this::add);
+        }
+        trimToSize();
+    }
+
+    public void clear() {
+        count = 0;
+        sortedById = true;
+        types.clear();
+        sizes.clear();
+        sleeveTypes.clear();
+        seasons.clear();
+    }
+
+    public void add(ClothingItem item) {
+        ensureCapacity(count + 1);
+
+        if (count > 0 && item.getItemId() <= ids[count - 1]) {
+            sortedById = false;
+        }
+
+        byte[] name = item.getName() == null ? new byte[0] : item.getName().getBytes(StandardCharsets.UTF_8);
+        int nameStart = nameOffsets[count];
+        if (nameStart + name.length > nameBytes.length) {
+            int capacity = Math.max(nameStart + name.length, nameBytes.length + (nameBytes.length >> 1));
+            nameBytes = Arrays.copyOf(nameBytes, capacity);
+        }
+        System.arraycopy(name, 0, nameBytes, nameStart, name.length);
+        nameOffsets[count + 1] = nameStart + name.length;
+
+        ids[count] = item.getItemId();
+        prices[count] = item.getPrice();
+        versions[count] = item.getVersion();
+        typeCodes[count] = (byte) types.encode(item.getType());
+        sizeCodes[count] = (short) sizes.encode(item.getSize());
+        sleeveCodes[count] = (short) sleeveTypes.encode(item instanceof Shirt ? ((Shirt) item).getSleeveType() : null);
+        seasonCodes[count] = (short) seasons.encode(item instanceof Jacket ? ((Jacket) item).getSeason() : null);
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // -------------------- Column access (no objects created) --------------------
+
+    public int getItemId(int row) {
+        checkRow(row);
+        return ids[row];
+    }
+
+    public String getType(int row) {
+        checkRow(row);
+        return types.decode(typeCodes[row]);
+    }
+
+    public String getName(int row) {
+        checkRow(row);
+        return name(row);
+    }
+
+    public String getSize(int row) {
+        checkRow(row);
+        return sizes.decode(sizeCodes[row]);
+    }
+
+    public double getPrice(int row) {
+        checkRow(row);
+        return prices[row];
+    }
+
+    public String getSleeveType(int row) {
+        checkRow(row);
+        return sleeveTypes.decode(sleeveCodes[row]);
+    }
+
+    public String getSeason(int row) {
+        checkRow(row);
+        return seasons.decode(seasonCodes[row]);
+    }
+
+    public int getVersion(int row) {
+        checkRow(row);
+        return versions[row];
+    }
+
+    // Decodes a new String on every call
+    private String name(int row) {
+        int start = nameOffsets[row];
+        return new String(nameBytes, start, nameOffsets[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    // Row number of the item, or -1 if it is not in the catalog
+    public int findRow(int itemId) {
+        if (sortedById) {
+            int row = Arrays.binarySearch(ids, 0, count, itemId);
+            return row >= 0 ? row : -1;
+        }
+        for (int row = 0; row < count; row++) {
+            if (ids[row] == itemId) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    // -------------------- Item views --------------------
+
+    // Flyweight for one row: it only holds the catalog and the row number, and every getter reads the
+    // columns. Results below are lists of views, so a query does not copy names or decode any column
+    // the caller does not read.
+    public ItemView view(int row) {
+        checkRow(row);
+        return new ItemView(this, row);
+    }
+
+    // Builds a full Shirt/Jacket for one row, for callers that need the model object
+    public ClothingItem get(int row) {
+        checkRow(row);
+        String type = types.decode(typeCodes[row]);
+
+        if (SHIRT.equals(type)) {
+            return Shirt.fromDatabase(ids[row], name(row), sizes.decode(sizeCodes[row]), prices[row],
+                    sleeveTypes.decode(sleeveCodes[row]), versions[row]);
+        }
+        if (JACKET.equals(type)) {
+            return Jacket.fromDatabase(ids[row], name(row), sizes.decode(sizeCodes[row]), prices[row],
+                    seasons.decode(seasonCodes[row]), versions[row]);
+        }
+        throw new IllegalStateException("Item " + ids[row] + " has unsupported type " + type);
+    }
+
+    public ItemView getById(int itemId) {
+        int row = findRow(itemId);
+        return row < 0 ? null : new ItemView(this, row);
+    }
+
+    // Compares one byte per row instead of a string
+    public List<ItemView> getByType(String type) {
+        List<ItemView> result = new ArrayList<>();
+        int code = types.lookup(type);
+        if (code == StringDictionary.NULL_CODE) {
+            return result;
+        }
+
+        for (int row = 0; row < count; row++) {
+            if (typeCodes[row] == code) {
+                result.add(new ItemView(this, row));
+            }
+        }
+        return result;
+    }
+
+    public List<ItemView> searchByPriceRange(double minPrice, double maxPrice) {
+        List<ItemView> result = new ArrayList<>();
+        for (int row = 0; row < count; row++) {
+            if (prices[row] >= minPrice && prices[row] <= maxPrice) {
+                result.add(new ItemView(this, row));
+            }
+        }
+        return result;
+    }
+
+    public static final class ItemView {
+        private final ColumnarCatalog catalog;
+        private final int row;
+
+        private ItemView(ColumnarCatalog catalog, int row) {
+            this.catalog = catalog;
+            this.row = row;
+        }
+
+        public int getItemId() {
+            return catalog.ids[row];
+        }
+
+        public String getType() {
+            return catalog.types.decode(catalog.typeCodes[row]);
+        }
+
+        public String getName() {
+            return catalog.name(row);
+        }
+
+        public String getSize() {
+            return catalog.sizes.decode(catalog.sizeCodes[row]);
+        }
+
+        public double getPrice() {
+            return catalog.prices[row];
+        }
+
+        public String getSleeveType() {
+            return catalog.sleeveTypes.decode(catalog.sleeveCodes[row]);
+        }
+
+        public String getSeason() {
+            return catalog.seasons.decode(catalog.seasonCodes[row]);
+        }
+
+        public int getVersion() {
+            return catalog.versions[row];
+        }
+
+        public ClothingItem toItem() {
+            return catalog.get(row);
+        }
+
+        @Override
+        public String toString() {
+            return toItem().toString();
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= count) {
+            throw new IndexOutOfBoundsException("row " + row + " out of range 0.." + (count - 1));
+        }
+    }
+
+    // Drops the growth slack once all rows are added; load() calls it at the end
+    public void trimToSize() {
+        resize(count);
+        nameBytes = Arrays.copyOf(nameBytes, nameOffsets[count]);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) {
+            return;
+        }
+        resize(Math.max(needed, ids.length + (ids.length >> 1)));
+    }
+
+    private void resize(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+        prices = Arrays.copyOf(prices, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        typeCodes = Arrays.copyOf(typeCodes, capacity);
+        sizeCodes = Arrays.copyOf(sizeCodes, capacity);
+        sleeveCodes = Arrays.copyOf(sleeveCodes, capacity);
+        seasonCodes = Arrays.copyOf(seasonCodes, capacity);
+    }
+}
@@ -0,0 +1,313 @@
+package catalog;
+
+import change.ChangeSubscriber;
+import change.ItemChange;
+import dao.ClothingItemDAO;
+import exception.UncheckedSQLException;
+import model.ClothingItem;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Read-only copy of clothing_items kept in memory for read-heavy workloads.
+// Methods have the same signatures and result order as ClothingItemDAO so callers can switch between them.
+// Subscribed to a ChangeFeedListener it applies other clients' writes without reloading the table.
+// Items are copied on the way in and out, so callers can never change the indexed prices or types.
+public class InMemoryCatalog implements ChangeSubscriber {
+
+    private final ClothingItemDAO dao;
+    private volatile Snapshot snapshot = Snapshot.build(new ArrayList<>());
+
+    public InMemoryCatalog(ClothingItemDAO dao) {
+        this.dao = dao;
+    }
+
+    // Replaces the in-memory copy with the current table contents; readers keep the old copy until done.
+    // Changes are held back until the load is done, so a change applied meanwhile is not overwritten.
+    public synchronized void load() throws SQLException {
+        List<ClothingItem> items = new ArrayList<>();
+        try (Stream<ClothingItem> rows = dao.streamAll()) {
+            rows.forEach(items::add);
+        }
+        snapshot = Snapshot.build(items);
+    }
+
+    // Loads from items that are already in memory (for example a feed or a test dataset)
+    public synchronized void load(Collection<? extends ClothingItem> items) {
+        List<ClothingItem> copies = new ArrayList<>(items.size());
+        for (ClothingItem item : items) {
+            copies.add(item.copy());
+        }
+        snapshot = Snapshot.build(copies);
+    }
+
+    // Merges the changed rows into a new snapshot; no database access and no re-sort of the table
+    @Override
+    public synchronized void onChanges(List<ItemChange> changes) {
+        // Last change per item wins; null marks a delete
+        TreeMap<Integer, ClothingItem> changed = new TreeMap<>();
+        for (ItemChange change : changes) {
+            changed.put(change.getItemId(), change.isDeleted() ? null : change.getItem().copy());
+        }
+        if (!changed.isEmpty()) {
+            snapshot = snapshot.apply(changed);
+        }
+    }
+
+    @Override
+    public void onReset() {
+        try {
+            load();
+        } catch (SQLException e) {
+            throw new UncheckedSQLException("Could not reload the catalog", e);
+        }
+    }
+
+    public int size() {
+        return snapshot.items.length;
+    }
+
+    public List<ClothingItem> getAll() throws SQLException {
+        ClothingItem[] items = snapshot.items;
+        List<ClothingItem> result = new ArrayList<>(items.length);
+        for (ClothingItem item : items) {
+            result.add(item.copy());
+        }
+        return result;
+    }
+
+    public ClothingItem getById(int itemId) throws SQLException {
+        Snapshot current = snapshot;
+        int position = Arrays.binarySearch(current.ids, itemId);
+        return position >= 0 ? current.items[position].copy() : null;
+    }
+
+    public List<ClothingItem> getByType(String type) throws SQLException {
+        Snapshot current = snapshot;
+        BitSet positions = current.typeIndex.get(type);
+        if (positions == null) {
+            return new ArrayList<>();
+        }
+
+        List<ClothingItem> result = new ArrayList<>(positions.cardinality());
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            result.add(current.items[i].copy());
+        }
+        return result;
+    }
+
+    // Same matching as the DAO's ILIKE, including % and _ wildcards
+    public List<ClothingItem> searchByName(String namePart) throws SQLException {
+        Predicate<String> matches = ClothingItemDAO.nameFilter(namePart);
+        List<ClothingItem> result = new ArrayList<>();
+        for (ClothingItem item : snapshot.items) {
+            if (matches.test(item.getName())) {
+                result.add(item.copy());
+            }
+        }
+        return result;
+    }
+
+    public List<ClothingItem> searchByPriceRange(double minPrice, double maxPrice) throws SQLException {
+        Snapshot current = snapshot;
+        int from = lowerBound(current.prices, minPrice);
+        int to = upperBound(current.prices, maxPrice);
+        return current.slice(from, to);
+    }
+
+    public List<ClothingItem> searchByMinPrice(double minPrice) throws SQLException {
+        Snapshot current = snapshot;
+        int from = lowerBound(current.prices, minPrice);
+        return current.slice(from, current.prices.length);
+    }
+
+    // First index with prices[i] >= value
+    private static int lowerBound(double[] prices, double value) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First index with prices[i] > value
+    private static int upperBound(double[] prices, double value) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Snapshot {
+        // items and ids are ordered by item_id
+        private final ClothingItem[] items;
+        private final int[] ids;
+
+        // prices ascending by (price, item_id); pricePostings[i] is the position in items of prices[i]
+        private final double[] prices;
+        private final int[] pricePostings;
+
+        private final Map<String, BitSet> typeIndex;
+
+        private Snapshot(ClothingItem[] items, int[] ids, double[] prices, int[] pricePostings,
+                         Map<String, BitSet> typeIndex) {
+            this.items = items;
+            this.ids = ids;
+            this.prices = prices;
+            this.pricePostings = pricePostings;
+            this.typeIndex = typeIndex;
+        }
+
+        private static Snapshot build(List<ClothingItem> source) {
+            List<ClothingItem> byId = new ArrayList<>(source);
+            byId.sort(Comparator.comparingInt(ClothingItem::getItemId));
+
+            int count = byId.size();
+            ClothingItem[] items = byId.toArray(new ClothingItem[0]);
+            int[] ids = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                ids[i] = items[i].getItemId();
+            }
+
+            // Sorting happens once per load; queries only touch the primitive arrays
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.<Integer>comparingDouble(i -> items[i].getPrice())
+                    .thenComparingInt(i -> items[i].getItemId()));
+
+            double[] prices = new double[count];
+            int[] pricePostings = new int[count];
+            for (int i = 0; i < count; i++) {
+                pricePostings[i] = order[i];
+                prices[i] = items[order[i]].getPrice();
+            }
+
+            return new Snapshot(items, ids, prices, pricePostings, typeIndex(items));
+        }
+
+        // New snapshot with the changed rows (item_id -> new row, null = deleted) merged in.
+        // Both orders are kept by linear merges: unchanged rows keep their relative order and only
+        // the changed rows are sorted.
+        private Snapshot apply(TreeMap<Integer, ClothingItem> changed) {
+            int oldCount = items.length;
+            ClothingItem[] newItems = new ClothingItem[oldCount + changed.size()];
+            int[] newIds = new int[newItems.length];
+            // Position in the new arrays of each old row, -1 if it was changed or deleted
+            int[] moved = new int[oldCount];
+            int[] added = new int[changed.size()];
+            int addedCount = 0;
+            int count = 0;
+            int i = 0;
+
+            for (Map.Entry<Integer, ClothingItem> entry : changed.entrySet()) {
+                int itemId = entry.getKey();
+                while (i < oldCount && ids[i] < itemId) {
+                    moved[i] = count;
+                    newItems[count] = items[i];
+                    newIds[count++] = ids[i++];
+                }
+                if (i < oldCount && ids[i] == itemId) {
+                    moved[i++] = -1;
+                }
+                if (entry.getValue() != null) {
+                    added[addedCount++] = count;
+                    newItems[count] = entry.getValue();
+                    newIds[count++] = itemId;
+                }
+            }
+            while (i < oldCount) {
+                moved[i] = count;
+                newItems[count] = items[i];
+                newIds[count++] = ids[i++];
+            }
+            newItems = Arrays.copyOf(newItems, count);
+            newIds = Arrays.copyOf(newIds, count);
+
+            // Changed rows in (price, item_id) order, then merged with the unchanged price entries
+            for (int a = 1; a < addedCount; a++) {
+                int position = added[a];
+                int b = a - 1;
+                while (b >= 0 && compareByPrice(newItems[added[b]], newItems[position]) > 0) {
+                    added[b + 1] = added[b];
+                    b--;
+                }
+                added[b + 1] = position;
+            }
+
+            double[] newPrices = new double[count];
+            int[] newPostings = new int[count];
+            int next = 0;
+            int a = 0;
+            for (int j = 0; j < prices.length; j++) {
+                int position = moved[pricePostings[j]];
+                if (position < 0) {
+                    continue;
+                }
+                while (a < addedCount && compareByPrice(newItems[added[a]], newItems[position]) < 0) {
+                    newPrices[next] = newItems[added[a]].getPrice();
+                    newPostings[next++] = added[a++];
+                }
+                newPrices[next] = prices[j];
+                newPostings[next++] = position;
+            }
+            while (a < addedCount) {
+                newPrices[next] = newItems[added[a]].getPrice();
+                newPostings[next++] = added[a++];
+            }
+
+            return new Snapshot(newItems, newIds, newPrices, newPostings, typeIndex(newItems));
+        }
+
+        private static int compareByPrice(ClothingItem first, ClothingItem second) {
+            int byPrice = Double.compare(first.getPrice(), second.getPrice());
+            return byPrice != 0 ? byPrice : Integer.compare(first.getItemId(), second.getItemId());
+        }
+
+        // One linear pass; positions shift whenever rows are added or removed
+        private static Map<String, BitSet> typeIndex(ClothingItem[] items) {
+            Map<String, BitSet> typeIndex = new HashMap<>();
+            for (int i = 0; i < items.length; i++) {
+                typeIndex.computeIfAbsent(items[i].getType(), type -> new BitSet(items.length)).set(i);
+            }
+            return typeIndex;
+        }
+
+        // Returns price index entries [from, to) highest price first, like ORDER BY price DESC, item_id DESC
+        private List<ClothingItem> slice(int from, int to) {
+            if (from >= to) {
+                return new ArrayList<>();
+            }
+            List<ClothingItem> result = new ArrayList<>(to - from);
+            for (int i = to - 1; i >= from; i--) {
+                result.add(items[pricePostings[i]].copy());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package catalog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Maps each distinct string to a small int code so repeated values are stored once
+public class StringDictionary {
+
+    public static final int NULL_CODE = -1;
+
+    private final int maxCodes;
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    public StringDictionary(int maxCodes) {
+        if (maxCodes <= 0) {
+            throw new IllegalArgumentException("maxCodes must be positive.");
+        }
+        this.maxCodes = maxCodes;
+    }
+
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (values.size() == maxCodes) {
+            throw new IllegalStateException("Dictionary is full (" + maxCodes + " distinct values).");
+        }
+        code = values.size();
+        codes.put(value, code);
+        values.add(value);
+        return code;
+    }
+
+    // Returns NULL_CODE when the value was never encoded
+    public int lookup(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null ? NULL_CODE : code;
+    }
+
+    public String decode(int code) {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    public void clear() {
+        codes.clear();
+        values.clear();
+    }
+
+        public int size() {
+        return values.size();
+    }
+}
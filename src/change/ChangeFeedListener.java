@@ -0,0 +1,314 @@
+package change;
+
+import dao.ItemRowMapper;
+import db.DatabaseConnection;
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Follows clothing_item_changes (filled by a trigger, see V5__change_log.sql) and hands new changes
+// to subscribers. NOTIFY only wakes the listener up; the log table is read by change_id, so nothing
+// is lost while disconnected and the listener catches up after a reconnect.
+public class ChangeFeedListener implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(ChangeFeedListener.class.getName());
+
+    public static final String CHANNEL = "clothing_items_changed";
+
+    // c.item_id is renamed so ItemRowMapper finds the joined row's item_id (null when deleted)
+    private static final String SELECT_CHANGES =
+            "SELECT c.change_id, c.item_id AS changed_item_id, c.operation, " +
+                    "i.item_id, i.type, i.name, i.size, i.price, i.sleeve_type, i.season, i.version " +
+                    "FROM clothing_item_changes c LEFT JOIN clothing_items i ON i.item_id = c.item_id ";
+
+    private static final String CHANGES_SQL =
+            SELECT_CHANGES + "WHERE c.change_id > ? ORDER BY c.change_id LIMIT ?";
+
+    // Holes are only as wide as the transactions that were in flight, so no LIMIT is needed
+    private static final String GAP_CHANGES_SQL =
+            SELECT_CHANGES + "WHERE c.change_id BETWEEN ? AND ? ORDER BY c.change_id";
+
+    private static final String LAST_CHANGE_SQL =
+            "SELECT coalesce(max(change_id), 0) FROM clothing_item_changes";
+
+    private static final String FIRST_CHANGE_SQL =
+            "SELECT min(change_id) FROM clothing_item_changes";
+
+    // Highest change_id handed out so far (committed or not); used when the log itself is empty
+    private static final String LAST_ISSUED_SQL =
+            "SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END " +
+                    "FROM clothing_item_changes_change_id_seq";
+
+    private static final String PRUNE_SQL =
+            "DELETE FROM clothing_item_changes WHERE changed_at < now() - make_interval(secs => ?)";
+
+    public static final long DEFAULT_POLL_MILLIS = 5000;
+    private static final long RECONNECT_DELAY_MILLIS = 2000;
+    private static final int BATCH_SIZE = 500;
+
+    // change_id values come from a sequence, so a transaction that commits late can leave a hole
+    // below ids already delivered. Holes are re-checked until they are this old, then assumed to
+    // be rolled back transactions.
+    private static final long GAP_TIMEOUT_MILLIS = 60_000;
+
+    private final List<ChangeSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final long pollMillis;
+
+    // Unfilled holes, each {firstId, lastId, firstSeenMillis}, ordered by firstId
+    private final List<long[]> gaps = new ArrayList<>();
+
+    private volatile long lastChangeId;
+    private volatile boolean running;
+    private Thread thread;
+
+    // Starts at the current end of the log, for subscribers that were just loaded
+    public ChangeFeedListener() {
+        this(-1, DEFAULT_POLL_MILLIS);
+    }
+
+    // startAfter is a change id saved from getLastChangeId(); -1 means the current end of the log.
+    // pollMillis is how long to wait for a NOTIFY before checking the log anyway.
+    public ChangeFeedListener(long startAfter, long pollMillis) {
+        if (pollMillis <= 0) {
+            throw new IllegalArgumentException("pollMillis must be positive.");
+        }
+        this.lastChangeId = startAfter;
+        this.pollMillis = pollMillis;
+    }
+
+    public void subscribe(ChangeSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(ChangeSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public long getLastChangeId() {
+        return lastChangeId;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listen, "change-feed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void listen() {
+        while (running) {
+            // Not from the pool: the session stays open for LISTEN
+            try (Connection connection = DatabaseConnection.openDedicatedConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                resume(connection);
+
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    // Also returns on timeout, which re-checks open gaps and covers a lost NOTIFY
+                    pg.getNotifications((int) pollMillis);
+                    catchUp(connection);
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    LOG.log(Level.WARNING, "Change feed disconnected, reconnecting", e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    // Sets the starting point on the first connect and detects a log pruned past our position
+    private void resume(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (lastChangeId < 0) {
+                lastChangeId = queryLong(statement, LAST_CHANGE_SQL);
+                return;
+            }
+
+            // An empty log says nothing by itself: it was pruned past us if the sequence moved on
+            long first = queryLong(statement, FIRST_CHANGE_SQL);
+            boolean pruned = first == 0
+                    ? queryLong(statement, LAST_ISSUED_SQL) > lastChangeId
+                    : first > lastChangeId + 1;
+            if (pruned) {
+                LOG.warning("Change log no longer has changes after #" + lastChangeId + ", resetting subscribers");
+                synchronized (gaps) {
+                    gaps.clear();
+                }
+                lastChangeId = queryLong(statement, LAST_CHANGE_SQL);
+                for (ChangeSubscriber subscriber : subscribers) {
+                    notifyReset(subscriber);
+                }
+                return;
+            }
+        }
+        catchUp(connection);
+    }
+
+    // Reads and delivers anything that appeared in open gaps, then everything after lastChangeId
+    private void catchUp(Connection connection) throws SQLException {
+        synchronized (gaps) {
+            expireGaps();
+
+            // Only the holes are read, not the changes delivered around them. accept() shrinks or
+            // splits the gaps while they are read, so the current ranges are copied first.
+            if (!gaps.isEmpty()) {
+                List<long[]> open = new ArrayList<>(gaps.size());
+                for (long[] gap : gaps) {
+                    open.add(new long[]{gap[0], gap[1]});
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(GAP_CHANGES_SQL)) {
+                    for (long[] range : open) {
+                        statement.setLong(1, range[0]);
+                        statement.setLong(2, range[1]);
+                        deliver(read(statement));
+                    }
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(CHANGES_SQL)) {
+                while (true) {
+                    statement.setLong(1, lastChangeId);
+                    statement.setInt(2, BATCH_SIZE);
+
+                    // Every row after lastChangeId is new, so the batch holds all rows read
+                    List<ItemChange> batch = read(statement);
+                    deliver(batch);
+                    if (batch.size() < BATCH_SIZE) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // Maps the changes not delivered yet
+    private List<ItemChange> read(PreparedStatement statement) throws SQLException {
+        List<ItemChange> batch = new ArrayList<>();
+
+        try (ResultSet resultSet = statement.executeQuery()) {
+            ItemRowMapper mapper = new ItemRowMapper(resultSet);
+            while (resultSet.next()) {
+                long changeId = resultSet.getLong("change_id");
+                if (!accept(changeId)) {
+                    continue;
+                }
+                resultSet.getInt("item_id");
+                boolean deleted = resultSet.wasNull();
+                batch.add(new ItemChange(changeId,
+                        resultSet.getInt("changed_item_id"),
+                        resultSet.getString("operation").charAt(0),
+                        deleted ? null : mapper.map()));
+            }
+        }
+        return batch;
+    }
+
+    // True if the change has not been delivered yet; records any hole it skips over
+    private boolean accept(long changeId) {
+        long last = lastChangeId;
+        if (changeId > last) {
+            if (changeId > last + 1) {
+                gaps.add(new long[]{last + 1, changeId - 1, System.currentTimeMillis()});
+            }
+            lastChangeId = changeId;
+            return true;
+        }
+
+        for (int i = 0; i < gaps.size(); i++) {
+            long[] gap = gaps.get(i);
+            if (changeId < gap[0] || changeId > gap[1]) {
+                continue;
+            }
+            if (gap[0] == gap[1]) {
+                gaps.remove(i);
+            } else if (changeId == gap[0]) {
+                gap[0]++;
+            } else if (changeId == gap[1]) {
+                gap[1]--;
+            } else {
+                gaps.add(i + 1, new long[]{changeId + 1, gap[1], gap[2]});
+                gap[1] = changeId - 1;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void expireGaps() {
+        long now = System.currentTimeMillis();
+        gaps.removeIf(gap -> now - gap[2] > GAP_TIMEOUT_MILLIS);
+    }
+
+    private void deliver(List<ItemChange> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (ChangeSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onChanges(batch);
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Change subscriber failed", e);
+            }
+        }
+    }
+
+    private static void notifyReset(ChangeSubscriber subscriber) {
+        try {
+            subscriber.onReset();
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Change subscriber failed to reset", e);
+        }
+    }
+
+    private static long queryLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            long value = resultSet.getLong(1);
+            return resultSet.wasNull() ? 0 : value;
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    // Deletes log rows older than the retention. Listeners that fall further behind get onReset().
+    public static int prune(Duration retention) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PRUNE_SQL)) {
+            statement.setDouble(1, retention.toMillis() / 1000.0);
+            return statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+}
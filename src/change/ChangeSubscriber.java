@@ -0,0 +1,15 @@
+package change;
+
+import java.util.List;
+
+public interface ChangeSubscriber {
+
+    // Changes come in change_id order within a batch. Each change carries the current row, so
+    // applying a change twice or late (after a gap was filled) still leaves the right state.
+    void onChanges(List<ItemChange> changes);
+
+    // Called when changes may have been missed (e.g. the log was pruned while disconnected);
+    // the subscriber should reload everything
+    default void onReset() {
+    }
+}
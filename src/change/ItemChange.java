@@ -0,0 +1,49 @@
+package change;
+
+import model.ClothingItem;
+
+// One row of clothing_item_changes together with the item's state at the time it was read.
+// The item is null when the row no longer exists, whatever the logged operation was.
+public class ItemChange {
+
+    public static final char INSERT = 'I';
+    public static final char UPDATE = 'U';
+    public static final char DELETE = 'D';
+
+    private final long changeId;
+    private final int itemId;
+    private final char operation;
+    private final ClothingItem item;
+
+    public ItemChange(long changeId, int itemId, char operation, ClothingItem item) {
+        this.changeId = changeId;
+        this.itemId = itemId;
+        this.operation = operation;
+        this.item = item;
+    }
+
+    public long getChangeId() {
+        return changeId;
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    public char getOperation() {
+        return operation;
+    }
+
+    public ClothingItem getItem() {
+        return item;
+    }
+
+    public boolean isDeleted() {
+        return item == null;
+    }
+
+    @Override
+    public String toString() {
+        return "Change #" + changeId + " " + operation + " item " + itemId;
+    }
+}
@@ -0,0 +1,187 @@
+package dao;
+
+import db.DatabaseConnection;
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Non-blocking facade over ClothingItemDAO. Each call runs on its own virtual thread,
+// and at most maxConcurrency calls touch the database at once (by default the pool size).
+// Failed futures complete with a CompletionException wrapping the SQLException.
+// A call sees the caller's recent writes: it reads from the primary when a read on the calling
+// thread would, because of markWrite(). A primarySession() of the caller is not carried over.
+// The streamXxx methods have no async variant: their connection stays open while the caller iterates.
+public class AsyncClothingItemDAO implements AutoCloseable {
+
+    private final ClothingItemDAO dao;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public AsyncClothingItemDAO(ClothingItemDAO dao) {
+        this(dao, DatabaseConnection.getPool().getMaxSize());
+    }
+
+    public AsyncClothingItemDAO(ClothingItemDAO dao, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive.");
+        }
+        this.dao = dao;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    public CompletableFuture<Boolean> insertShirt(Shirt shirt) {
+        return submit(() -> dao.insertShirt(shirt));
+    }
+
+    public CompletableFuture<Boolean> insertJacket(Jacket jacket) {
+        return submit(() -> dao.insertJacket(jacket));
+    }
+
+    // Completes with the ID assigned from the sequence
+    public CompletableFuture<Integer> insertShirt(String name, String size, double price, String sleeveType) {
+        return submit(() -> dao.insertShirt(name, size, price, sleeveType));
+    }
+
+    public CompletableFuture<Integer> insertJacket(String name, String size, double price, String season) {
+        return submit(() -> dao.insertJacket(name, size, price, season));
+    }
+
+    public CompletableFuture<Integer> insertAll(Collection<? extends ClothingItem> items) {
+        return submit(() -> dao.insertAll(items));
+    }
+
+    public CompletableFuture<Integer> insertAllWithCopy(Collection<? extends ClothingItem> items) {
+        return submit(() -> dao.insertAllWithCopy(items));
+    }
+
+    public CompletableFuture<int[]> applyWrites(List<ItemWrite> writes) {
+        return submit(() -> dao.applyWrites(writes));
+    }
+
+    public CompletableFuture<List<ClothingItem>> getAll() {
+        return submit(dao::getAll);
+    }
+
+    public CompletableFuture<ClothingItem> getById(int itemId) {
+        return submit(() -> dao.getById(itemId));
+    }
+
+    public CompletableFuture<Map<Integer, ClothingItem>> getByIds(int[] ids) {
+        return submit(() -> dao.getByIds(ids));
+    }
+
+    public CompletableFuture<List<ClothingItem>> getByType(String type) {
+        return submit(() -> dao.getByType(type));
+    }
+
+    public CompletableFuture<Boolean> updateShirt(int itemId, String name, String size, double price, String sleeveType) {
+        return submit(() -> dao.updateShirt(itemId, name, size, price, sleeveType));
+    }
+
+    public CompletableFuture<Boolean> updateJacket(int itemId, String name, String size, double price, String season) {
+        return submit(() -> dao.updateJacket(itemId, name, size, price, season));
+    }
+
+    public CompletableFuture<Boolean> updateShirt(Shirt shirt) {
+        return submit(() -> dao.updateShirt(shirt));
+    }
+
+    public CompletableFuture<Boolean> updateJacket(Jacket jacket) {
+        return submit(() -> dao.updateJacket(jacket));
+    }
+
+    public CompletableFuture<Boolean> deleteById(int itemId) {
+        return submit(() -> dao.deleteById(itemId));
+    }
+
+    public CompletableFuture<List<ClothingItem>> searchByName(String namePart) {
+        return submit(() -> dao.searchByName(namePart));
+    }
+
+    public CompletableFuture<List<ClothingItem>> searchByPriceRange(double minPrice, double maxPrice) {
+        return submit(() -> dao.searchByPriceRange(minPrice, maxPrice));
+    }
+
+    public CompletableFuture<List<ClothingItem>> searchByMinPrice(double minPrice) {
+        return submit(() -> dao.searchByMinPrice(minPrice));
+    }
+
+    public CompletableFuture<Page<ClothingItem>> getAllPage(int pageSize, String token) {
+        return submit(() -> dao.getAllPage(pageSize, token));
+    }
+
+    public CompletableFuture<Page<ClothingItem>> getByTypePage(String type, int pageSize, String token) {
+        return submit(() -> dao.getByTypePage(type, pageSize, token));
+    }
+
+    public CompletableFuture<Page<ClothingItem>> searchByNamePage(String namePart, int pageSize, String token) {
+        return submit(() -> dao.searchByNamePage(namePart, pageSize, token));
+    }
+
+    public CompletableFuture<Page<ClothingItem>> searchByPriceRangePage(double minPrice, double maxPrice,
+                                                                        int pageSize, String token) {
+        return submit(() -> dao.searchByPriceRangePage(minPrice, maxPrice, pageSize, token));
+    }
+
+    public CompletableFuture<Page<ClothingItem>> searchByMinPricePage(double minPrice, int pageSize, String token) {
+        return submit(() -> dao.searchByMinPricePage(minPrice, pageSize, token));
+    }
+
+    // Number of calls currently waiting for a free database slot
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    private <T> CompletableFuture<T> submit(DaoCall<T> call) {
+        Long writeMark = DatabaseConnection.getWriteMark();
+
+        return CompletableFuture.supplyAsync(() -> {
+            DatabaseConnection.carryWriteMark(writeMark);
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+
+            try {
+                return call.call();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    // Stops accepting calls and waits briefly for running ones to finish
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface DaoCall<T> {
+        T call() throws SQLException;
+    }
+}
@@ -0,0 +1,397 @@
+package dao;
+
+import change.ChangeSubscriber;
+import change.ItemChange;
+import db.DatabaseConnection;
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Read-through cache for getById; every write through this DAO invalidates the affected IDs.
+// Callers always get their own copy, so changing a returned item never changes the cached one.
+// getByType and the search methods are cached as whole results (see QueryResultCache), which any write clears.
+// Subscribed to a ChangeFeedListener it also drops entries changed by other clients.
+// Misses are loaded from the primary: a lagging replica could still return a row from before the
+// write that just cleared it, and the cache would then keep that old row until the next write.
+public class CachingClothingItemDAO extends ClothingItemDAO implements ChangeSubscriber {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final int DEFAULT_MAX_CACHED_ROWS = 50_000;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<Integer, CacheEntry> entries;
+    private final QueryResultCache queries;
+
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private long writeEpoch;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public CachingClothingItemDAO() {
+        this(DEFAULT_MAX_ENTRIES, 0);
+    }
+
+    // ttlMillis = 0 means entries never expire and are only removed by eviction or writes
+    public CachingClothingItemDAO(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, DEFAULT_MAX_CACHED_ROWS);
+    }
+
+    // maxCachedRows limits the rows held by cached search results; 0 turns result caching off
+    public CachingClothingItemDAO(int maxEntries, long ttlMillis, int maxCachedRows) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive.");
+        }
+        if (maxCachedRows < 0) {
+            throw new IllegalArgumentException("maxCachedRows cannot be negative.");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttlMillis cannot be negative.");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.queries = new QueryResultCache(maxCachedRows, ttlMillis);
+
+        // accessOrder = true turns the map into an LRU list
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CacheEntry> eldest) {
+                if (size() > CachingClothingItemDAO.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public ClothingItem getById(int itemId) throws SQLException {
+        long epoch;
+
+        synchronized (this) {
+            CacheEntry entry = entries.get(itemId);
+            if (entry != null) {
+                if (!entry.isExpired()) {
+                    hits++;
+                    return entry.item.copy();
+                }
+                entries.remove(itemId);
+                expirations++;
+            }
+            misses++;
+            epoch = writeEpoch;
+        }
+
+        ClothingItem item = DatabaseConnection.onPrimary(() -> super.getById(itemId));
+
+        if (item != null) {
+            synchronized (this) {
+                if (epoch == writeEpoch) {
+                    entries.put(itemId, new CacheEntry(item.copy(), ttlMillis));
+                }
+            }
+        }
+        return item;
+    }
+
+    // Cached items are served from memory; only the misses go to the database, in one query
+    @Override
+    public Map<Integer, ClothingItem> getByIds(int[] ids) throws SQLException {
+        Map<Integer, ClothingItem> found = new HashMap<>(ids.length * 2);
+        Set<Integer> seen = new HashSet<>(ids.length * 2);
+        int[] missing = new int[ids.length];
+        int missingCount = 0;
+        long epoch;
+
+        synchronized (this) {
+            for (int itemId : ids) {
+                if (!seen.add(itemId)) {
+                    continue;
+                }
+                CacheEntry entry = entries.get(itemId);
+                if (entry != null) {
+                    if (!entry.isExpired()) {
+                        hits++;
+                        found.put(itemId, entry.item.copy());
+                        continue;
+                    }
+                    entries.remove(itemId);
+                    expirations++;
+                }
+                misses++;
+                missing[missingCount++] = itemId;
+            }
+            epoch = writeEpoch;
+        }
+
+        if (missingCount == 0) {
+            return found;
+        }
+
+        int[] toLoad = Arrays.copyOf(missing, missingCount);
+        Map<Integer, ClothingItem> loaded = DatabaseConnection.onPrimary(() -> super.getByIds(toLoad));
+        found.putAll(loaded);
+
+        synchronized (this) {
+            if (epoch == writeEpoch) {
+                for (ClothingItem item : loaded.values()) {
+                    entries.put(item.getItemId(), new CacheEntry(item.copy(), ttlMillis));
+                }
+            }
+        }
+        return found;
+    }
+
+    // -------------------- Cached results --------------------
+    // Keys are built from normalized parameters so equivalent searches share one entry.
+
+    @Override
+    public List<ClothingItem> getByType(String type) throws SQLException {
+        return queries.get("getByType:" + type, () -> DatabaseConnection.onPrimary(() -> super.getByType(type)));
+    }
+
+    // ILIKE ignores case, so the lower-cased fragment returns the same rows
+    @Override
+    public List<ClothingItem> searchByName(String namePart) throws SQLException {
+        String normalized = namePart.toLowerCase(Locale.ROOT);
+        return queries.get("searchByName:" + normalized,
+                () -> DatabaseConnection.onPrimary(() -> super.searchByName(normalized)));
+    }
+
+    @Override
+    public List<ClothingItem> searchByPriceRange(double minPrice, double maxPrice) throws SQLException {
+        double min = normalize(minPrice);
+        double max = normalize(maxPrice);
+        return queries.get("searchByPriceRange:" + min + ":" + max,
+                () -> DatabaseConnection.onPrimary(() -> super.searchByPriceRange(min, max)));
+    }
+
+    @Override
+    public List<ClothingItem> searchByMinPrice(double minPrice) throws SQLException {
+        double min = normalize(minPrice);
+        return queries.get("searchByMinPrice:" + min,
+                () -> DatabaseConnection.onPrimary(() -> super.searchByMinPrice(min)));
+    }
+
+    // -0.0 and 0.0 compare equal in SQL but print differently
+    private static double normalize(double price) {
+        return price == 0 ? 0.0 : price;
+    }
+
+    @Override
+    public boolean insertShirt(Shirt shirt) throws SQLException {
+        try {
+            return super.insertShirt(shirt);
+        } finally {
+            invalidate(shirt.getItemId());
+        }
+    }
+
+    @Override
+    public boolean insertJacket(Jacket jacket) throws SQLException {
+        try {
+            return super.insertJacket(jacket);
+        } finally {
+            invalidate(jacket.getItemId());
+        }
+    }
+
+    @Override
+    public int insertAll(Collection<? extends ClothingItem> items) throws SQLException {
+        try {
+            return super.insertAll(items);
+        } finally {
+            invalidateAll(items);
+        }
+    }
+
+    @Override
+    public int insertAllWithCopy(Collection<? extends ClothingItem> items) throws SQLException {
+        try {
+            return super.insertAllWithCopy(items);
+        } finally {
+            invalidateAll(items);
+        }
+    }
+
+    @Override
+    public boolean updateShirt(int itemId, String name, String size, double price, String sleeveType) throws SQLException {
+        try {
+            return super.updateShirt(itemId, name, size, price, sleeveType);
+        } finally {
+            invalidate(itemId);
+        }
+    }
+
+    @Override
+    public boolean updateJacket(int itemId, String name, String size, double price, String season) throws SQLException {
+        try {
+            return super.updateJacket(itemId, name, size, price, season);
+        } finally {
+            invalidate(itemId);
+        }
+    }
+
+    @Override
+    public boolean updateShirt(Shirt shirt) throws SQLException {
+        try {
+            return super.updateShirt(shirt);
+        } finally {
+            invalidate(shirt.getItemId());
+        }
+    }
+
+    @Override
+    public boolean updateJacket(Jacket jacket) throws SQLException {
+        try {
+            return super.updateJacket(jacket);
+        } finally {
+            invalidate(jacket.getItemId());
+        }
+    }
+
+    @Override
+    public int[] applyWrites(List<ItemWrite> writes) throws SQLException {
+        try {
+            return super.applyWrites(writes);
+        } finally {
+            synchronized (this) {
+                for (ItemWrite write : writes) {
+                    invalidate(write.getItemId());
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean deleteById(int itemId) throws SQLException {
+        try {
+            return super.deleteById(itemId);
+        } finally {
+            invalidate(itemId);
+        }
+    }
+
+    public synchronized void invalidate(int itemId) {
+        writeEpoch++;
+        entries.remove(itemId);
+        queries.invalidateAll();
+    }
+
+    public synchronized void invalidateAll() {
+        writeEpoch++;
+        entries.clear();
+        queries.invalidateAll();
+    }
+
+    @Override
+    public synchronized void onChanges(List<ItemChange> changes) {
+        for (ItemChange change : changes) {
+            invalidate(change.getItemId());
+        }
+    }
+
+    @Override
+    public void onReset() {
+        invalidateAll();
+    }
+
+    private synchronized void invalidateAll(Collection<? extends ClothingItem> items) {
+        writeEpoch++;
+        for (ClothingItem item : items) {
+            entries.remove(item.getItemId());
+        }
+        queries.invalidateAll();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized long getExpirationCount() {
+        return expirations;
+    }
+
+    public int getCachedResultCount() {
+        return queries.size();
+    }
+
+    public long getCachedResultRows() {
+        return queries.getRetainedRows();
+    }
+
+    public long getResultHitCount() {
+        return queries.getHitCount();
+    }
+
+    public long getResultMissCount() {
+        return queries.getMissCount();
+    }
+
+    // Misses that waited for an identical query already running instead of starting their own
+    public long getSharedLoadCount() {
+        return queries.getSharedLoadCount();
+    }
+
+    public long getResultEvictionCount() {
+        return queries.getEvictionCount();
+    }
+
+    public synchronized double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CachingClothingItemDAO(size=" + entries.size() +
+                ", max=" + maxEntries +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                ", results=" + queries.size() +
+                ", resultRows=" + queries.getRetainedRows() + ")";
+    }
+
+    private static final class CacheEntry {
+        private final ClothingItem item;
+        private final long expiresAt;
+
+        private CacheEntry(ClothingItem item, long ttlMillis) {
+            this.item = item;
+            this.expiresAt = ttlMillis == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + ttlMillis;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
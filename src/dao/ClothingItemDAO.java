@@ -1,234 +1,890 @@
 package dao;
 
 import db.DatabaseConnection;
+import exception.BatchInsertException;
+import exception.OptimisticLockException;
+import exception.UncheckedSQLException;
+import metrics.DaoMetrics;
 import model.ClothingItem;
 import model.Jacket;
 import model.Shirt;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class ClothingItemDAO {
+public class ClothingItemDAO implements ClothingItemStore {
 
-    private static final String SELECT_COLUMNS =
+    private static final DaoMetrics METRICS = DaoMetrics.get();
+
+    private static final Object[] NO_PARAMS = {};
+
+    // Columns written on insert; version starts at its default of 0
+    private static final String INSERT_COLUMNS =
             "item_id, type, name, size, price, sleeve_type, season";
 
-    public boolean insertShirt(Shirt shirt) throws SQLException {
-        String sql = "INSERT INTO clothing_items (item_id, type, name, size, price, sleeve_type, season) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_COLUMNS = INSERT_COLUMNS + ", version";
 
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+    private static final String INSERT_SQL =
+            "INSERT INTO clothing_items (" + INSERT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
 
-            statement.setInt(1, shirt.getItemId());
-            statement.setString(2, shirt.getType());
-            statement.setString(3, shirt.getName());
-            statement.setString(4, shirt.getSize());
-            statement.setDouble(5, shirt.getPrice());
-            statement.setString(6, shirt.getSleeveType());
-            statement.setNull(7, Types.VARCHAR);
+    private static final String COPY_SQL =
+            "COPY clothing_items (" + INSERT_COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+    // All statements are constants so each connection's prepared statement cache sees identical SQL
+    // text and, after the driver's prepareThreshold, reuses the server-side parsed and planned statement.
+    private static final String SELECT_ALL_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items ORDER BY item_id";
+
+    private static final String SELECT_BY_ID_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items WHERE item_id = ?";
+
+    // One array parameter, so the statement text is the same for any number of IDs
+    private static final String SELECT_BY_IDS_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items WHERE item_id = ANY(?)";
+
+    private static final String SELECT_BY_TYPE_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items WHERE type = ? ORDER BY item_id";
+
+    // clothing_items is list-partitioned by type. For the known types the type is written into the
+    // statement, so the planner drops the other partitions once when planning instead of checking
+    // the parameter on every execution. Other types use the parameterized statement.
+    private static final String[] PARTITIONED_TYPES = {"SHIRT", "JACKET"};
+
+    private static final Map<String, String> SELECT_BY_TYPE_SQL_FOR = typeStatements(SELECT_BY_TYPE_SQL);
+
+    // The search statements are public so bench.IndexCheck can EXPLAIN exactly what the DAO runs
+    public static final String SELECT_BY_NAME_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items WHERE name ILIKE ? ORDER BY item_id";
+
+    public static final String SELECT_BY_PRICE_RANGE_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items " +
+                    "WHERE price BETWEEN ? AND ? ORDER BY price DESC, item_id DESC";
+
+    private static final String SELECT_BY_MIN_PRICE_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items " +
+                    "WHERE price >= ? ORDER BY price DESC, item_id DESC";
+
+    // Unversioned updates still bump the version so versioned writers notice them
+    private static final String UPDATE_SHIRT_SQL =
+            "UPDATE clothing_items " +
+                    "SET name = ?, size = ?, price = ?, sleeve_type = ?, season = NULL, version = version + 1 " +
+                    "WHERE item_id = ? AND type = 'SHIRT'";
+
+    private static final String UPDATE_JACKET_SQL =
+            "UPDATE clothing_items " +
+                    "SET name = ?, size = ?, price = ?, season = ?, sleeve_type = NULL, version = version + 1 " +
+                    "WHERE item_id = ? AND type = 'JACKET'";
+
+    // Optimistic locking: the row is only written if nobody changed it since it was read
+    private static final String UPDATE_SHIRT_VERSIONED_SQL =
+            "UPDATE clothing_items " +
+                    "SET name = ?, size = ?, price = ?, sleeve_type = ?, season = NULL, version = version + 1 " +
+                    "WHERE item_id = ? AND type = 'SHIRT' AND version = ?";
+
+    private static final String UPDATE_JACKET_VERSIONED_SQL =
+            "UPDATE clothing_items " +
+                    "SET name = ?, size = ?, price = ?, season = ?, sleeve_type = NULL, version = version + 1 " +
+                    "WHERE item_id = ? AND type = 'JACKET' AND version = ?";
+
+    private static final String SELECT_VERSION_SQL =
+            "SELECT version FROM clothing_items WHERE item_id = ? AND type = ?";
+
+    private static final String DELETE_BY_ID_SQL =
+            "DELETE FROM clothing_items WHERE item_id = ?";
+
+    private static final String PAGE_ALL_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items " +
+                    "WHERE item_id > ? ORDER BY item_id LIMIT ?";
+
+    private static final String PAGE_BY_TYPE_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items " +
+                    "WHERE type = ? AND item_id > ? ORDER BY item_id LIMIT ?";
+
+    private static final Map<String, String> PAGE_BY_TYPE_SQL_FOR = typeStatements(PAGE_BY_TYPE_SQL);
+
+    public static final String PAGE_BY_NAME_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items " +
+                    "WHERE name ILIKE ? AND item_id > ? ORDER BY item_id LIMIT ?";
+
+    public static final String PAGE_BY_PRICE_RANGE_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items " +
+                    "WHERE price BETWEEN ? AND ? AND (price, item_id) < (?, ?) " +
+                    "ORDER BY price DESC, item_id DESC LIMIT ?";
+
+    private static final String PAGE_BY_MIN_PRICE_SQL =
+            "SELECT " + SELECT_COLUMNS + " FROM clothing_items " +
+                    "WHERE price >= ? AND (price, item_id) < (?, ?) " +
+                    "ORDER BY price DESC, item_id DESC LIMIT ?";
+
+    // Shared by all DAOs in the JVM so they draw from the same reserved block
+    private static final ItemIdAllocator ID_ALLOCATOR = new ItemIdAllocator();
 
-            return statement.executeUpdate() > 0;
+    // SQLSTATE unique_violation
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    // A generated ID can only collide with an ID entered by hand or from a feed; retry with a new one
+    private static final int MAX_ID_ATTEMPTS = 3;
+
+    private static final String APPLY_WRITES_LABEL = "batched INSERT/UPDATE/DELETE on clothing_items";
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // Larger getByIds calls are split so a single array parameter stays a reasonable size
+    public static final int MAX_IDS_PER_QUERY = 10_000;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive.");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    // Rows pulled per round trip by the stream* methods
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be positive.");
         }
+        this.fetchSize = fetchSize;
     }
 
+    @Override
+    public boolean insertShirt(Shirt shirt) throws SQLException {
+        return update("insertShirt", INSERT_SQL,
+                shirt.getItemId(), shirt.getType(), shirt.getName(), shirt.getSize(), shirt.getPrice(),
+                shirt.getSleeveType(), null) > 0;
+    }
+
+    // Assigns the ID from the sequence and returns it
+    public int insertShirt(String name, String size, double price, String sleeveType) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            Shirt shirt = new Shirt(ID_ALLOCATOR.nextId(), name, size, price, sleeveType);
+            try {
+                insertShirt(shirt);
+                return shirt.getItemId();
+            } catch (SQLException e) {
+                if (attempt >= MAX_ID_ATTEMPTS || !UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
     public boolean insertJacket(Jacket jacket) throws SQLException {
-        String sql = "INSERT INTO clothing_items (item_id, type, name, size, price, sleeve_type, season) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        return update("insertJacket", INSERT_SQL,
+                jacket.getItemId(), jacket.getType(), jacket.getName(), jacket.getSize(), jacket.getPrice(),
+                null, jacket.getSeason()) > 0;
+    }
 
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+    // Assigns the ID from the sequence and returns it
+    public int insertJacket(String name, String size, double price, String season) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            Jacket jacket = new Jacket(ID_ALLOCATOR.nextId(), name, size, price, season);
+            try {
+                insertJacket(jacket);
+                return jacket.getItemId();
+            } catch (SQLException e) {
+                if (attempt >= MAX_ID_ATTEMPTS || !UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+            }
+        }
+    }
 
-            statement.setInt(1, jacket.getItemId());
-            statement.setString(2, jacket.getType());
-            statement.setString(3, jacket.getName());
-            statement.setString(4, jacket.getSize());
-            statement.setDouble(5, jacket.getPrice());
-            statement.setNull(6, Types.VARCHAR);
-            statement.setString(7, jacket.getSeason());
+    // Inserts shirts and jackets in JDBC batches inside one transaction.
+    // If any row fails nothing is inserted and BatchInsertException tells which item failed.
+    @Override
+    public int insertAll(Collection<? extends ClothingItem> items) throws SQLException {
+        if (items.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                List<ClothingItem> pending = new ArrayList<>(Math.min(batchSize, items.size()));
+                int batchStart = 0;
+                int inserted = 0;
+
+                for (ClothingItem item : items) {
+                    bindInsert(statement, item);
+                    statement.addBatch();
+                    pending.add(item);
+
+                    if (pending.size() == batchSize) {
+                        inserted += executeBatch(statement, pending, batchStart);
+                        batchStart += pending.size();
+                        pending.clear();
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    inserted += executeBatch(statement, pending, batchStart);
+                }
 
-            return statement.executeUpdate() > 0;
+                connection.commit();
+                DatabaseConnection.markWrite();
+                METRICS.recordCall("insertAll", INSERT_SQL, NO_PARAMS, start, inserted, false);
+                return inserted;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                METRICS.recordCall("insertAll", INSERT_SQL, NO_PARAMS, start, 0, true);
+                throw e;
+            }
         }
     }
 
-    public List<ClothingItem> getAll() throws SQLException {
-        List<ClothingItem> items = new ArrayList<>();
-        String sql = "SELECT " + SELECT_COLUMNS + " FROM clothing_items ORDER BY item_id";
+    // Bulk load through PostgreSQL COPY; faster than batches but all-or-nothing without per-row details
+    public int insertAllWithCopy(Collection<? extends ClothingItem> items) throws SQLException {
+        if (items.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        long copied = 0;
 
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
+        try (Connection connection = connect()) {
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
 
-            while (resultSet.next()) {
-                items.add(mapRow(resultSet));
+            try {
+                CopyRowWriter writer = new CopyRowWriter(copy);
+                for (ClothingItem item : items) {
+                    writer.write(item);
+                }
+
+                copied = writer.finish();
+                DatabaseConnection.markWrite();
+                failed = false;
+                return (int) copied;
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
             }
+        } finally {
+            METRICS.recordCall("insertAllWithCopy", COPY_SQL, NO_PARAMS, start, copied, failed);
         }
+    }
 
-        return items;
+    // Runs the writes in order in one transaction; consecutive writes of the same kind share a JDBC batch.
+    // Returns the rows changed by each write (0 = the item was not found). On failure nothing is applied.
+    public int[] applyWrites(List<ItemWrite> writes) throws SQLException {
+        int[] counts = new int[writes.size()];
+        if (writes.isEmpty()) {
+            return counts;
+        }
+
+        long start = System.nanoTime();
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+
+            try {
+                int from = 0;
+                while (from < writes.size()) {
+                    String sql = sqlFor(writes.get(from));
+                    int to = from;
+
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        while (to < writes.size() && to - from < batchSize && sqlFor(writes.get(to)).equals(sql)) {
+                            bindWrite(statement, writes.get(to));
+                            statement.addBatch();
+                            to++;
+                        }
+                        executeWrites(statement, writes, from, to, counts);
+                    }
+                    from = to;
+                }
+
+                connection.commit();
+                DatabaseConnection.markWrite();
+                METRICS.recordCall("applyWrites", APPLY_WRITES_LABEL, NO_PARAMS, start, writes.size(), false);
+                return counts;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                METRICS.recordCall("applyWrites", APPLY_WRITES_LABEL, NO_PARAMS, start, 0, true);
+                throw e;
+            }
+        }
     }
 
+    // IDs for items created without one (see insertShirt(String, ...))
+    public int allocateItemId() throws SQLException {
+        return ID_ALLOCATOR.nextId();
+    }
+
+    @Override
+    public List<ClothingItem> getAll() throws SQLException {
+        return queryList("getAll", SELECT_ALL_SQL);
+    }
+
+    @Override
     public ClothingItem getById(int itemId) throws SQLException {
-        String sql = "SELECT " + SELECT_COLUMNS + " FROM clothing_items WHERE item_id = ?";
+        List<ClothingItem> items = queryList("getById", SELECT_BY_ID_SQL, itemId);
+        return items.isEmpty() ? null : items.get(0);
+    }
 
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+    // Looks up many items in one round trip. IDs that do not exist are missing from the map;
+    // duplicates are looked up once.
+    @Override
+    public Map<Integer, ClothingItem> getByIds(int[] ids) throws SQLException {
+        int[] distinct = Arrays.stream(ids).distinct().toArray();
+        Map<Integer, ClothingItem> found = new HashMap<>(distinct.length * 2);
+
+        for (int from = 0; from < distinct.length; from += MAX_IDS_PER_QUERY) {
+            int[] chunk = Arrays.copyOfRange(distinct, from, Math.min(distinct.length, from + MAX_IDS_PER_QUERY));
+            for (ClothingItem item : queryList("getByIds", SELECT_BY_IDS_SQL, (Object) chunk)) {
+                found.put(item.getItemId(), item);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<ClothingItem> getByType(String type) throws SQLException {
+        String sql = SELECT_BY_TYPE_SQL_FOR.get(type);
+        return sql != null ? queryList("getByType", sql) : queryList("getByType", SELECT_BY_TYPE_SQL, type);
+    }
+
+    @Override
+    public boolean updateShirt(int itemId, String name, String size, double price, String sleeveType) throws SQLException {
+        return update("updateShirt", UPDATE_SHIRT_SQL, name, size, price, sleeveType, itemId) > 0;
+    }
 
-            statement.setInt(1, itemId);
+    @Override
+    public boolean updateJacket(int itemId, String name, String size, double price, String season) throws SQLException {
+        return update("updateJacket", UPDATE_JACKET_SQL, name, size, price, season, itemId) > 0;
+    }
+
+    // Writes the shirt only if its row still has shirt.getVersion(); on success the shirt's version
+    // is incremented to match the row. Returns false if the shirt no longer exists.
+    @Override
+    public boolean updateShirt(Shirt shirt) throws SQLException {
+        int count = update("updateShirtVersioned", UPDATE_SHIRT_VERSIONED_SQL,
+                shirt.getName(), shirt.getSize(), shirt.getPrice(), shirt.getSleeveType(),
+                shirt.getItemId(), shirt.getVersion());
+        return versionedResult(shirt, count);
+    }
 
+    // Same as updateShirt(Shirt) for jackets
+    @Override
+    public boolean updateJacket(Jacket jacket) throws SQLException {
+        int count = update("updateJacketVersioned", UPDATE_JACKET_VERSIONED_SQL,
+                jacket.getName(), jacket.getSize(), jacket.getPrice(), jacket.getSeason(),
+                jacket.getItemId(), jacket.getVersion());
+        return versionedResult(jacket, count);
+    }
+
+    // No row updated means the item is gone or its version moved on; only the second is a conflict
+    private boolean versionedResult(ClothingItem item, int count) throws SQLException {
+        if (count > 0) {
+            item.setVersion(item.getVersion() + 1);
+            return true;
+        }
+
+        Integer current = null;
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(SELECT_VERSION_SQL)) {
+            statement.setInt(1, item.getItemId());
+            statement.setString(2, item.getType());
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return mapRow(resultSet);
+                    current = resultSet.getInt(1);
                 }
             }
         }
 
-        return null;
+        if (current == null) {
+            return false;
+        }
+        throw new OptimisticLockException(item.getItemId(), item.getVersion(), current);
     }
 
-    public List<ClothingItem> getByType(String type) throws SQLException {
-        List<ClothingItem> items = new ArrayList<>();
-        String sql = "SELECT " + SELECT_COLUMNS + " FROM clothing_items WHERE type = ? ORDER BY item_id";
+    @Override
+    public boolean deleteById(int itemId) throws SQLException {
+        return update("deleteById", DELETE_BY_ID_SQL, itemId) > 0;
+    }
 
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+    @Override
+    public List<ClothingItem> searchByName(String namePart) throws SQLException {
+        return queryList("searchByName", SELECT_BY_NAME_SQL, containsPattern(namePart));
+    }
 
-            statement.setString(1, type);
+    @Override
+    public List<ClothingItem> searchByPriceRange(double minPrice, double maxPrice) throws SQLException {
+        return queryList("searchByPriceRange", SELECT_BY_PRICE_RANGE_SQL, minPrice, maxPrice);
+    }
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    items.add(mapRow(resultSet));
+    @Override
+    public List<ClothingItem> searchByMinPrice(double minPrice) throws SQLException {
+        return queryList("searchByMinPrice", SELECT_BY_MIN_PRICE_SQL, minPrice);
+    }
+
+    // -------------------- Streaming --------------------
+    // These return lazy streams backed by a server-side cursor. The connection stays open
+    // until the stream is closed, so always use them in try-with-resources.
+
+    public Stream<ClothingItem> streamAll() throws SQLException {
+        return stream("streamAll", SELECT_ALL_SQL);
+    }
+
+    public Stream<ClothingItem> streamByType(String type) throws SQLException {
+        String sql = SELECT_BY_TYPE_SQL_FOR.get(type);
+        return sql != null ? stream("streamByType", sql) : stream("streamByType", SELECT_BY_TYPE_SQL, type);
+    }
+
+    public Stream<ClothingItem> streamByName(String namePart) throws SQLException {
+        return stream("streamByName", SELECT_BY_NAME_SQL, containsPattern(namePart));
+    }
+
+    public Stream<ClothingItem> streamByPriceRange(double minPrice, double maxPrice) throws SQLException {
+        return stream("streamByPriceRange", SELECT_BY_PRICE_RANGE_SQL, minPrice, maxPrice);
+    }
+
+    public Stream<ClothingItem> streamByMinPrice(double minPrice) throws SQLException {
+        return stream("streamByMinPrice", SELECT_BY_MIN_PRICE_SQL, minPrice);
+    }
+
+    // Metrics for a stream are recorded when it is closed, so they cover the whole iteration
+    private Stream<ClothingItem> stream(String method, String sql, Object... params) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = connectForRead();
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            // PostgreSQL only uses a cursor (and honours fetchSize) inside a transaction
+            connection.setAutoCommit(false);
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            bind(statement, params);
+            resultSet = statement.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(resultSet, statement, connection);
+            METRICS.recordCall(method, sql, params, start, 0, true);
+            throw e;
+        }
+
+        ResultSet rows = resultSet;
+        PreparedStatement owner = statement;
+        ItemRowMapper mapper;
+        try {
+            mapper = new ItemRowMapper(rows);
+        } catch (SQLException e) {
+            closeQuietly(rows, owner, connection);
+            METRICS.recordCall(method, sql, params, start, 0, true);
+            throw e;
+        }
+
+        long[] rowCount = new long[1];
+        boolean[] failed = new boolean[1];
+
+        Spliterator<ClothingItem> spliterator = new Spliterators.AbstractSpliterator<ClothingItem>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super ClothingItem> action) {
+                try {
+                    if (!rows.next()) {
+                        return false;
+                    }
+                    rowCount[0]++;
+                    action.accept(mapper.map());
+                    return true;
+                } catch (SQLException e) {
+                    failed[0] = true;
+                    throw new UncheckedSQLException("Database error while streaming items", e);
                 }
             }
-        }
+        };
 
-        return items;
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> {
+                    closeQuietly(rows, owner, connection);
+                    METRICS.recordCall(method, sql, params, start, rowCount[0], failed[0]);
+                });
     }
 
-    public boolean updateShirt(int itemId, String name, String size, double price, String sleeveType) throws SQLException {
-        String sql = "UPDATE clothing_items " +
-                "SET name = ?, size = ?, price = ?, sleeve_type = ?, season = NULL " +
-                "WHERE item_id = ? AND type = 'SHIRT'";
+    // -------------------- Keyset pagination --------------------
+    // Pages continue after the last row of the previous page (no OFFSET), so deep pages
+    // cost the same as the first one. Pass null as the token to get the first page.
 
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+    public Page<ClothingItem> getAllPage(int pageSize, String token) throws SQLException {
+        int afterId = decodeIdToken(token);
+        return page("getAllPage", PAGE_ALL_SQL, pageSize, false, afterId, pageSize + 1);
+    }
+
+    public Page<ClothingItem> getByTypePage(String type, int pageSize, String token) throws SQLException {
+        int afterId = decodeIdToken(token);
+        String sql = PAGE_BY_TYPE_SQL_FOR.get(type);
+        return sql != null ? page("getByTypePage", sql, pageSize, false, afterId, pageSize + 1)
+                : page("getByTypePage", PAGE_BY_TYPE_SQL, pageSize, false, type, afterId, pageSize + 1);
+    }
+
+    public Page<ClothingItem> searchByNamePage(String namePart, int pageSize, String token) throws SQLException {
+        int afterId = decodeIdToken(token);
+        return page("searchByNamePage", PAGE_BY_NAME_SQL, pageSize, false, containsPattern(namePart), afterId, pageSize + 1);
+    }
+
+    public Page<ClothingItem> searchByPriceRangePage(double minPrice, double maxPrice, int pageSize, String token)
+            throws SQLException {
+        PriceKey after = decodePriceToken(token);
+        return page("searchByPriceRangePage", PAGE_BY_PRICE_RANGE_SQL,
+                pageSize, true, minPrice, maxPrice, after.price, after.itemId, pageSize + 1);
+    }
+
+    public Page<ClothingItem> searchByMinPricePage(double minPrice, int pageSize, String token) throws SQLException {
+        PriceKey after = decodePriceToken(token);
+        return page("searchByMinPricePage", PAGE_BY_MIN_PRICE_SQL,
+                pageSize, true, minPrice, after.price, after.itemId, pageSize + 1);
+    }
+
+    // The query must ask for pageSize + 1 rows; the extra row only tells us whether there is a next page
+    private Page<ClothingItem> page(String method, String sql, int pageSize, boolean priceKey, Object... params)
+            throws SQLException {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
 
-            statement.setString(1, name);
-            statement.setString(2, size);
-            statement.setDouble(3, price);
-            statement.setString(4, sleeveType);
-            statement.setInt(5, itemId);
+        List<ClothingItem> items = queryList(method, sql, params);
+        boolean more = items.size() > pageSize;
+        if (more) {
+            items.remove(items.size() - 1);
+        }
 
-            return statement.executeUpdate() > 0;
+        String nextToken = null;
+        if (more) {
+            ClothingItem last = items.get(items.size() - 1);
+            nextToken = priceKey ? encodeToken("p:" + last.getPrice() + ":" + last.getItemId())
+                    : encodeToken("i:" + last.getItemId());
         }
+        return new Page<>(items, nextToken);
     }
 
-    public boolean updateJacket(int itemId, String name, String size, double price, String season) throws SQLException {
-        String sql = "UPDATE clothing_items " +
-                "SET name = ?, size = ?, price = ?, season = ?, sleeve_type = NULL " +
-                "WHERE item_id = ? AND type = 'JACKET'";
+    private static String encodeToken(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+    private static String decodeToken(String token, String prefix) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(prefix)) {
+                throw new IllegalArgumentException("Page token does not belong to this query.");
+            }
+            return raw.substring(prefix.length());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token.", e);
+        }
+    }
 
-            statement.setString(1, name);
-            statement.setString(2, size);
-            statement.setDouble(3, price);
-            statement.setString(4, season);
-            statement.setInt(5, itemId);
+    private static int decodeIdToken(String token) {
+        if (token == null) {
+            return 0; // item_id is always positive
+        }
+        try {
+            return Integer.parseInt(decodeToken(token, "i:"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token.", e);
+        }
+    }
 
-            return statement.executeUpdate() > 0;
+    private static PriceKey decodePriceToken(String token) {
+        if (token == null) {
+            return new PriceKey(Double.POSITIVE_INFINITY, Integer.MAX_VALUE);
+        }
+        String[] parts = decodeToken(token, "p:").split(":");
+        try {
+            return new PriceKey(Double.parseDouble(parts[0]), Integer.parseInt(parts[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page token.", e);
         }
     }
 
-    public boolean deleteById(int itemId) throws SQLException {
-        String sql = "DELETE FROM clothing_items WHERE item_id = ?";
+    private static final class PriceKey {
+        private final double price;
+        private final int itemId;
 
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+        private PriceKey(double price, int itemId) {
+            this.price = price;
+            this.itemId = itemId;
+        }
+    }
 
-            statement.setInt(1, itemId);
-            return statement.executeUpdate() > 0;
+    private static void closeQuietly(ResultSet resultSet, PreparedStatement statement, Connection connection) {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (statement != null) {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            System.out.println("Error closing result set");
+        } finally {
+            DatabaseConnection.closeConnection(connection);
         }
     }
 
-    public List<ClothingItem> searchByName(String namePart) throws SQLException {
+    // -------------------- Query helpers --------------------
+    // All single-statement calls go through these so every call is timed and counted in DaoMetrics.
+    // Queries may run on a read replica (see DatabaseConnection); writes always use the primary.
+
+    private Connection connect() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = DatabaseConnection.getConnection();
+        METRICS.recordConnectionAcquire(System.nanoTime() - start);
+        return connection;
+    }
+
+    private Connection connectForRead() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = DatabaseConnection.getReadConnection();
+        METRICS.recordConnectionAcquire(System.nanoTime() - start);
+        return connection;
+    }
+
+    private List<ClothingItem> queryList(String method, String sql, Object... params) throws SQLException {
+        long start = System.nanoTime();
         List<ClothingItem> items = new ArrayList<>();
-        String sql = "SELECT " + SELECT_COLUMNS + " FROM clothing_items WHERE name ILIKE ? ORDER BY item_id";
 
-        try (Connection connection = DatabaseConnection.getConnection();
+        try (Connection connection = connectForRead();
              PreparedStatement statement = connection.prepareStatement(sql)) {
 
-            statement.setString(1, "%" + namePart + "%");
+            bind(statement, params);
 
             try (ResultSet resultSet = statement.executeQuery()) {
+                ItemRowMapper mapper = new ItemRowMapper(resultSet);
                 while (resultSet.next()) {
-                    items.add(mapRow(resultSet));
+                    items.add(mapper.map());
                 }
             }
+        } catch (SQLException | RuntimeException e) {
+            METRICS.recordCall(method, sql, params, start, items.size(), true);
+            throw e;
         }
 
+        METRICS.recordCall(method, sql, params, start, items.size(), false);
         return items;
     }
 
-    public List<ClothingItem> searchByPriceRange(double minPrice, double maxPrice) throws SQLException {
-        List<ClothingItem> items = new ArrayList<>();
-        String sql = "SELECT " + SELECT_COLUMNS + " FROM clothing_items " +
-                "WHERE price BETWEEN ? AND ? ORDER BY price DESC";
+    private int update(String method, String sql, Object... params) throws SQLException {
+        long start = System.nanoTime();
 
-        try (Connection connection = DatabaseConnection.getConnection();
+        try (Connection connection = connect();
              PreparedStatement statement = connection.prepareStatement(sql)) {
 
-            statement.setDouble(1, minPrice);
-            statement.setDouble(2, maxPrice);
+            bind(statement, params);
+            int count = statement.executeUpdate();
+            DatabaseConnection.markWrite();
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    items.add(mapRow(resultSet));
-                }
+            METRICS.recordCall(method, sql, params, start, count, false);
+            return count;
+        } catch (SQLException | RuntimeException e) {
+            METRICS.recordCall(method, sql, params, start, 0, true);
+            throw e;
+        }
+    }
+
+    // null binds as a VARCHAR NULL, which covers the nullable sleeve_type/season columns;
+    // int[] binds as a Postgres integer[] for = ANY(?)
+    private static void bind(PreparedStatement statement, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object value = params[i];
+
+            if (value == null) {
+                statement.setNull(i + 1, Types.VARCHAR);
+            } else if (value instanceof Integer) {
+                statement.setInt(i + 1, (Integer) value);
+            } else if (value instanceof Double) {
+                statement.setDouble(i + 1, (Double) value);
+            } else if (value instanceof String) {
+                statement.setString(i + 1, (String) value);
+            } else if (value instanceof int[]) {
+                Integer[] elements = Arrays.stream((int[]) value).boxed().toArray(Integer[]::new);
+                statement.setArray(i + 1, statement.getConnection().createArrayOf("integer", elements));
+            } else {
+                statement.setObject(i + 1, value);
             }
         }
+    }
 
-        return items;
+    // ILIKE pattern for "name contains namePart". % and _ in namePart stay wildcards (and \ escapes
+    // them), as the menu search has always allowed.
+    public static String containsPattern(String namePart) {
+        return "%" + namePart + "%";
     }
 
-    public List<ClothingItem> searchByMinPrice(double minPrice) throws SQLException {
-        List<ClothingItem> items = new ArrayList<>();
-        String sql = "SELECT " + SELECT_COLUMNS + " FROM clothing_items " +
-                "WHERE price >= ? ORDER BY price DESC";
+    // The same match as name ILIKE containsPattern(namePart), for searches done in Java
+    public static Predicate<String> nameFilter(String namePart) {
+        if (namePart.indexOf('%') < 0 && namePart.indexOf('_') < 0 && namePart.indexOf('\\') < 0) {
+            String needle = namePart.toLowerCase(Locale.ROOT);
+            return name -> name.toLowerCase(Locale.ROOT).contains(needle);
+        }
 
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+        // Walks the whole ILIKE pattern, so a trailing \ escapes the closing % as it does in SQL
+        String like = containsPattern(namePart);
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < like.length(); i++) {
+            char c = like.charAt(i);
+            if (c == '\\' && i + 1 < like.length()) {
+                regex.append(Pattern.quote(String.valueOf(like.charAt(++i))));
+            } else if (c == '%') {
+                regex.append(".*");
+            } else if (c == '_') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        Pattern pattern = Pattern.compile(regex.toString(),
+                Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+        return name -> pattern.matcher(name).matches();
+    }
 
-            statement.setDouble(1, minPrice);
+    private static Map<String, String> typeStatements(String sql) {
+        Map<String, String> statements = new HashMap<>();
+        for (String type : PARTITIONED_TYPES) {
+            statements.put(type, sql.replace("type = ?", "type = '" + type + "'"));
+        }
+        return statements;
+    }
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    items.add(mapRow(resultSet));
+    private static String sqlFor(ItemWrite write) {
+        switch (write.getKind()) {
+            case INSERT:
+                return INSERT_SQL;
+            case UPDATE:
+                return write.getItem() instanceof Shirt ? UPDATE_SHIRT_SQL : UPDATE_JACKET_SQL;
+            default:
+                return DELETE_BY_ID_SQL;
+        }
+    }
+
+    private void bindWrite(PreparedStatement statement, ItemWrite write) throws SQLException {
+        ClothingItem item = write.getItem();
+
+        if (write.getKind() == ItemWrite.Kind.INSERT) {
+            bindInsert(statement, item);
+        } else if (write.getKind() == ItemWrite.Kind.DELETE) {
+            statement.setInt(1, write.getItemId());
+        } else if (item instanceof Shirt) {
+            bind(statement, item.getName(), item.getSize(), item.getPrice(), ((Shirt) item).getSleeveType(),
+                    item.getItemId());
+        } else {
+            bind(statement, item.getName(), item.getSize(), item.getPrice(), ((Jacket) item).getSeason(),
+                    item.getItemId());
+        }
+    }
+
+    private static void executeWrites(PreparedStatement statement, List<ItemWrite> writes, int from, int to,
+                                      int[] counts) throws SQLException {
+        try {
+            int[] result = statement.executeBatch();
+            for (int i = 0; i < result.length; i++) {
+                counts[from + i] = result[i] == Statement.SUCCESS_NO_INFO ? 1 : result[i];
+            }
+        } catch (BatchUpdateException e) {
+            int offset = firstFailure(e.getUpdateCounts(), to - from);
+            SQLException cause = e.getNextException() != null ? e.getNextException() : e;
+
+            if (offset < 0) {
+                throw new BatchInsertException("Batch write failed: " + cause.getMessage(), -1, -1, cause);
+            }
+            ItemWrite failed = writes.get(from + offset);
+            throw new BatchInsertException("Batch write failed at " + failed +
+                    " (position " + (from + offset) + "): " + cause.getMessage(),
+                    from + offset, failed.getItemId(), cause);
+        }
+    }
+
+    private int executeBatch(PreparedStatement statement, List<ClothingItem> pending, int batchStart)
+            throws SQLException {
+        try {
+            int inserted = 0;
+            for (int count : statement.executeBatch()) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    inserted++;
                 }
             }
+            return inserted;
+        } catch (BatchUpdateException e) {
+            int offset = firstFailure(e.getUpdateCounts(), pending.size());
+            SQLException cause = e.getNextException() != null ? e.getNextException() : e;
+
+            if (offset < 0) {
+                throw new BatchInsertException("Batch insert failed: " + cause.getMessage(), -1, -1, cause);
+            }
+
+            ClothingItem failed = pending.get(offset);
+            throw new BatchInsertException("Batch insert failed at item " + failed.getItemId() +
+                    " (position " + (batchStart + offset) + "): " + cause.getMessage(),
+                    batchStart + offset, failed.getItemId(), cause);
         }
+    }
 
-        return items;
+    private static int firstFailure(int[] counts, int batchLength) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == Statement.EXECUTE_FAILED) {
+                return i;
+            }
+        }
+        // The driver may stop reporting at the failing statement
+        return counts.length < batchLength ? counts.length : -1;
     }
 
-    private ClothingItem mapRow(ResultSet resultSet) throws SQLException {
-        int id = resultSet.getInt("item_id");
-        String type = resultSet.getString("type");
-        String name = resultSet.getString("name");
-        String size = resultSet.getString("size");
-        double price = resultSet.getDouble("price");
+    private void bindInsert(PreparedStatement statement, ClothingItem item) throws SQLException {
+        statement.setInt(1, item.getItemId());
+        statement.setString(2, item.getType());
+        statement.setString(3, item.getName());
+        statement.setString(4, item.getSize());
+        statement.setDouble(5, item.getPrice());
 
-        if (type != null && type.equalsIgnoreCase("SHIRT")) {
-            String sleeve = resultSet.getString("sleeve_type");
-            return new Shirt(id, name, size, price, sleeve);
+        if (item instanceof Shirt) {
+            statement.setString(6, ((Shirt) item).getSleeveType());
+            statement.setNull(7, Types.VARCHAR);
+        } else if (item instanceof Jacket) {
+            statement.setNull(6, Types.VARCHAR);
+            statement.setString(7, ((Jacket) item).getSeason());
+        } else {
+            throw new IllegalArgumentException("Unsupported item type: " + item.getType());
         }
-
-        String season = resultSet.getString("season");
-        return new Jacket(id, name, size, price, season);
     }
 }
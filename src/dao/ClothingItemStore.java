@@ -0,0 +1,51 @@
+package dao;
+
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Storage operations shared by the PostgreSQL DAO (ClothingItemDAO) and the embedded
+// file-backed store (store.MappedItemStore). Both follow the same rules:
+// - inserting an existing item_id fails with SQLSTATE 23505, a too long text value with 22001
+// - updateShirt/updateJacket only touch items of that type and return false otherwise
+// - versioned updates throw OptimisticLockException when the stored version moved on
+// - list results are ordered by item_id, price searches by price then item_id, both descending
+public interface ClothingItemStore {
+
+    boolean insertShirt(Shirt shirt) throws SQLException;
+
+    boolean insertJacket(Jacket jacket) throws SQLException;
+
+    // All items are inserted or none
+    int insertAll(Collection<? extends ClothingItem> items) throws SQLException;
+
+    List<ClothingItem> getAll() throws SQLException;
+
+    ClothingItem getById(int itemId) throws SQLException;
+
+    Map<Integer, ClothingItem> getByIds(int[] ids) throws SQLException;
+
+    List<ClothingItem> getByType(String type) throws SQLException;
+
+    boolean updateShirt(int itemId, String name, String size, double price, String sleeveType) throws SQLException;
+
+    boolean updateJacket(int itemId, String name, String size, double price, String season) throws SQLException;
+
+    boolean updateShirt(Shirt shirt) throws SQLException;
+
+    boolean updateJacket(Jacket jacket) throws SQLException;
+
+    boolean deleteById(int itemId) throws SQLException;
+
+    // Case-insensitive substring match, like ILIKE '%part%'
+    List<ClothingItem> searchByName(String namePart) throws SQLException;
+
+    List<ClothingItem> searchByPriceRange(double minPrice, double maxPrice) throws SQLException;
+
+    List<ClothingItem> searchByMinPrice(double minPrice) throws SQLException;
+}
@@ -0,0 +1,85 @@
+package dao;
+
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+// Writes items to a running "COPY ... (item_id, type, name, size, price, sleeve_type, season)
+// FROM STDIN WITH (FORMAT csv)" in chunks, so memory use does not grow with the number of rows
+public class CopyRowWriter {
+
+    // Rows buffered in memory before they are sent to COPY
+    private static final int CHUNK_ROWS = 1000;
+
+    private final CopyIn copy;
+    private final StringBuilder chunk = new StringBuilder();
+    private int buffered;
+    private long written;
+
+    public CopyRowWriter(CopyIn copy) {
+        this.copy = copy;
+    }
+
+    public void write(ClothingItem item) throws SQLException {
+        appendRow(chunk, item);
+        buffered++;
+        written++;
+
+        if (buffered == CHUNK_ROWS) {
+            flush();
+        }
+    }
+
+    public void flush() throws SQLException {
+        if (chunk.length() == 0) {
+            return;
+        }
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+        buffered = 0;
+    }
+
+    // Sends the remaining rows and ends the COPY; returns the row count reported by the server
+    public long finish() throws SQLException {
+        flush();
+        return copy.endCopy();
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    private static void appendRow(StringBuilder out, ClothingItem item) {
+        String sleeve = null;
+        String season = null;
+
+        if (item instanceof Shirt) {
+            sleeve = ((Shirt) item).getSleeveType();
+        } else if (item instanceof Jacket) {
+            season = ((Jacket) item).getSeason();
+        } else {
+            throw new IllegalArgumentException("Unsupported item type: " + item.getType());
+        }
+
+        out.append(item.getItemId()).append(',');
+        appendValue(out, item.getType()).append(',');
+        appendValue(out, item.getName()).append(',');
+        appendValue(out, item.getSize()).append(',');
+        out.append(item.getPrice()).append(',');
+        appendValue(out, sleeve).append(',');
+        appendValue(out, season).append('\n');
+    }
+
+    // In COPY csv format an unquoted empty value is NULL, so every real string is quoted
+    private static StringBuilder appendValue(StringBuilder out, String value) {
+        if (value == null) {
+            return out;
+        }
+        return out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
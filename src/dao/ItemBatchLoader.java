@@ -0,0 +1,196 @@
+package dao;
+
+import db.DatabaseConnection;
+import model.ClothingItem;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Coalesces single-item lookups from many threads into one getByIds query (DataLoader-style).
+// The first request opens a short window; every ID requested before it closes, or until
+// maxBatchSize IDs are waiting, is fetched in the same round trip.
+// Failed futures complete with a CompletionException wrapping the SQLException.
+// Every caller gets its own item, also when the same ID was requested twice in one window.
+// A batch reads from the primary when any of its callers would (see DatabaseConnection.markWrite()).
+public class ItemBatchLoader implements AutoCloseable {
+
+    public static final long DEFAULT_WINDOW_MICROS = 2000;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
+    private final ClothingItemDAO dao;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService executor;
+
+    // Requests for the same ID in one window share a future
+    private Batch pending = new Batch();
+    private ScheduledFuture<?> scheduled;
+    private boolean closed;
+
+    private long batches;
+    private long requests;
+
+    public ItemBatchLoader(ClothingItemDAO dao) {
+        this(dao, DEFAULT_WINDOW_MICROS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public ItemBatchLoader(ClothingItemDAO dao, long windowMicros, int maxBatchSize) {
+        if (windowMicros < 0) {
+            throw new IllegalArgumentException("windowMicros cannot be negative.");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive.");
+        }
+        this.dao = dao;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "item-batch-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // Completes with null if the item does not exist
+    public CompletableFuture<ClothingItem> load(int itemId) {
+        Long writeMark = DatabaseConnection.getWriteMark();
+        Batch full = null;
+        CompletableFuture<ClothingItem> future;
+
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("ItemBatchLoader is closed.");
+            }
+            requests++;
+            pending.carry(writeMark);
+
+            // The shared future stays internal; callers only see their own copy of its item
+            future = pending.futures.get(itemId);
+            if (future != null) {
+                return future.thenApply(ItemBatchLoader::copyOf);
+            }
+            future = new CompletableFuture<>();
+            pending.futures.put(itemId, future);
+
+            if (pending.futures.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (pending.futures.size() == 1) {
+                scheduled = timer.schedule(this::dispatchPending, windowMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+
+        CompletableFuture<ClothingItem> mine = future.thenApply(ItemBatchLoader::copyOf);
+        if (full != null) {
+            dispatch(full);
+        }
+        return mine;
+    }
+
+    private static ClothingItem copyOf(ClothingItem item) {
+        return item == null ? null : item.copy();
+    }
+
+    // Blocking variant for callers that are not asynchronous themselves
+    public ClothingItem get(int itemId) throws SQLException {
+        try {
+            return load(itemId).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for item " + itemId, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Lookup of item " + itemId + " failed", cause);
+        }
+    }
+
+    private synchronized Batch takePending() {
+        Batch batch = pending;
+        pending = new Batch();
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+        return batch;
+    }
+
+    private void dispatchPending() {
+        Batch batch = takePending();
+        if (!batch.futures.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(Batch batch) {
+        synchronized (this) {
+            batches++;
+        }
+
+        executor.execute(() -> {
+            DatabaseConnection.carryWriteMark(batch.writeMark);
+            int[] ids = batch.futures.keySet().stream().mapToInt(Integer::intValue).toArray();
+            try {
+                Map<Integer, ClothingItem> found = dao.getByIds(ids);
+                batch.futures.forEach((itemId, future) -> future.complete(found.get(itemId)));
+            } catch (SQLException | RuntimeException e) {
+                CompletionException failure = new CompletionException(e);
+                batch.futures.values().forEach(future -> future.completeExceptionally(failure));
+            }
+        });
+    }
+
+    public synchronized long getBatchCount() {
+        return batches;
+    }
+
+    public synchronized long getRequestCount() {
+        return requests;
+    }
+
+    // Sends whatever is still waiting, then stops
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        timer.shutdownNow();
+        dispatchPending();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The IDs of one window and the newest write mark of the threads that asked for them
+    private static final class Batch {
+        private final Map<Integer, CompletableFuture<ClothingItem>> futures = new HashMap<>();
+        private Long writeMark;
+
+        private void carry(Long mark) {
+            if (mark != null && (writeMark == null || mark - writeMark > 0)) {
+                writeMark = mark;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package dao;
+
+import db.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hands out item IDs from clothing_items_item_id_seq using hi/lo blocks: one nextval reserves
+// BLOCK_SIZE IDs, which this JVM then gives out with an atomic counter and no round trip.
+// IDs are unique across processes but not gap-free; unused IDs of a block are lost on shutdown.
+public class ItemIdAllocator {
+
+    // Must match INCREMENT BY of the sequence (V6__item_id_sequence.sql)
+    public static final int BLOCK_SIZE = 50;
+
+    private static final String NEXT_BLOCK_SQL = "SELECT nextval('clothing_items_item_id_seq')";
+
+    private volatile Block block;
+    private long blocksFetched;
+
+    public int nextId() throws SQLException {
+        while (true) {
+            Block current = block;
+            if (current != null) {
+                int id = current.next.getAndIncrement();
+                if (id < current.end) {
+                    return id;
+                }
+            }
+
+            // Only one thread fetches a new block; the others retry on it
+            synchronized (this) {
+                if (block == current) {
+                    block = fetchBlock();
+                }
+            }
+        }
+    }
+
+    public synchronized long getBlocksFetched() {
+        return blocksFetched;
+    }
+
+    private Block fetchBlock() throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(NEXT_BLOCK_SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            long start = resultSet.getLong(1);
+            // end is exclusive and the counter keeps counting past it, so both must stay inside int
+            if (start > Integer.MAX_VALUE - BLOCK_SIZE) {
+                throw new SQLException("clothing_items_item_id_seq is past the INT range of item_id.");
+            }
+            blocksFetched++;
+            return new Block((int) start, (int) start + BLOCK_SIZE);
+        }
+    }
+
+    private static final class Block {
+        private final AtomicInteger next;
+        private final int end;
+
+        private Block(int start, int end) {
+            this.next = new AtomicInteger(start);
+            this.end = end;
+        }
+    }
+}
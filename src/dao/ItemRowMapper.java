@@ -0,0 +1,81 @@
+package dao;
+
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Maps clothing_items rows to Shirt/Jacket for one result set.
+// Column positions are looked up once, small-vocabulary values (type, size, sleeve type, season)
+// are shared instead of kept as one copy per row, and stored values are not re-validated.
+public class ItemRowMapper {
+
+    // Upper bound on shared values so a column with unexpected unique values cannot grow the map forever
+    private static final int MAX_SHARED_VALUES = 1024;
+    private static final Map<String, String> SHARED_VALUES = new ConcurrentHashMap<>();
+
+    private final ResultSet resultSet;
+    private final int idColumn;
+    private final int typeColumn;
+    private final int nameColumn;
+    private final int sizeColumn;
+    private final int priceColumn;
+    private final int sleeveColumn;
+    private final int seasonColumn;
+    private final int versionColumn;
+
+    public ItemRowMapper(ResultSet resultSet) throws SQLException {
+        this.resultSet = resultSet;
+        this.idColumn = resultSet.findColumn("item_id");
+        this.typeColumn = resultSet.findColumn("type");
+        this.nameColumn = resultSet.findColumn("name");
+        this.sizeColumn = resultSet.findColumn("size");
+        this.priceColumn = resultSet.findColumn("price");
+        this.sleeveColumn = resultSet.findColumn("sleeve_type");
+        this.seasonColumn = resultSet.findColumn("season");
+        this.versionColumn = resultSet.findColumn("version");
+    }
+
+    // Maps the current row
+    public ClothingItem map() throws SQLException {
+        int id = resultSet.getInt(idColumn);
+        String type = resultSet.getString(typeColumn);
+        String name = resultSet.getString(nameColumn);
+        String size = share(resultSet.getString(sizeColumn));
+        double price = resultSet.getDouble(priceColumn);
+        int version = resultSet.getInt(versionColumn);
+
+        if (isType(type, "SHIRT")) {
+            return Shirt.fromDatabase(id, name, size, price, share(resultSet.getString(sleeveColumn)), version);
+        }
+        if (isType(type, "JACKET")) {
+            return Jacket.fromDatabase(id, name, size, price, share(resultSet.getString(seasonColumn)), version);
+        }
+        // Rows of other types (the DEFAULT partition) have no model class yet
+        throw new SQLException("Item " + id + " has unsupported type " + type);
+    }
+
+    // The DAO always writes upper case; the case-insensitive check is only a fallback for hand-edited rows
+    private static boolean isType(String type, String expected) {
+        return expected.equals(type) || (type != null && type.equalsIgnoreCase(expected));
+    }
+
+    private static String share(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = SHARED_VALUES.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        if (SHARED_VALUES.size() >= MAX_SHARED_VALUES) {
+            return value;
+        }
+        shared = SHARED_VALUES.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+}
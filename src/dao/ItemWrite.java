@@ -0,0 +1,50 @@
+package dao;
+
+import model.ClothingItem;
+
+// One insert, update or delete for ClothingItemDAO.applyWrites
+public final class ItemWrite {
+
+    public enum Kind { INSERT, UPDATE, DELETE }
+
+    private final Kind kind;
+    private final ClothingItem item;
+    private final int itemId;
+
+    private ItemWrite(Kind kind, ClothingItem item, int itemId) {
+        this.kind = kind;
+        this.item = item;
+        this.itemId = itemId;
+    }
+
+    public static ItemWrite insert(ClothingItem item) {
+        return new ItemWrite(Kind.INSERT, item, item.getItemId());
+    }
+
+    // Same as updateShirt/updateJacket with the item's values (not versioned)
+    public static ItemWrite update(ClothingItem item) {
+        return new ItemWrite(Kind.UPDATE, item, item.getItemId());
+    }
+
+    public static ItemWrite delete(int itemId) {
+        return new ItemWrite(Kind.DELETE, null, itemId);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    // null for deletes
+    public ClothingItem getItem() {
+        return item;
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + itemId;
+    }
+}
@@ -0,0 +1,61 @@
+package dao;
+
+import db.DatabaseConnection;
+import exception.OptimisticLockException;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Runs a read-modify-write until it succeeds without a version conflict. The attempt has to
+// re-read the item each time, e.g.
+//   OptimisticRetry.run(() -> { Shirt s = (Shirt) dao.getById(id); s.setPrice(p); return dao.updateShirt(s); });
+// Waits between attempts grow and are randomized so competing writers do not collide again.
+// Attempts read from the primary, since a lagging replica would keep returning the old version.
+public final class OptimisticRetry {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_MILLIS = 5;
+    private static final long MAX_BACKOFF_MILLIS = 200;
+
+    private OptimisticRetry() {
+    }
+
+    public static <T> T run(Attempt<T> attempt) throws SQLException {
+        return run(DEFAULT_MAX_ATTEMPTS, attempt);
+    }
+
+    // The last OptimisticLockException is rethrown once maxAttempts are used up
+    public static <T> T run(int maxAttempts, Attempt<T> attempt) throws SQLException {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive.");
+        }
+
+        return DatabaseConnection.onPrimary(() -> {
+            for (int tried = 1; ; tried++) {
+                try {
+                    return attempt.run();
+                } catch (OptimisticLockException e) {
+                    if (tried >= maxAttempts) {
+                        throw e;
+                    }
+                    backoff(tried);
+                }
+            }
+        });
+    }
+
+    private static void backoff(int tried) throws SQLException {
+        long limit = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(tried, 10));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(limit + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while retrying an optimistic update.", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Attempt<T> {
+        T run() throws SQLException;
+    }
+}
@@ -0,0 +1,33 @@
+package dao;
+
+import java.util.Collections;
+import java.util.List;
+
+// One page of a keyset-paginated query; pass nextToken back to get the following page
+public class Page<T> {
+
+    private final List<T> items;
+    private final String nextToken;
+
+    public Page(List<T> items, String nextToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextToken = nextToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    // null when this is the last page
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -0,0 +1,191 @@
+package dao;
+
+import model.ClothingItem;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+// Caches whole search results by query key (see the key methods in CachingClothingItemDAO).
+// Memory is bounded by the number of retained rows, not entries, because one "all shirts" result
+// can be larger than hundreds of narrow searches. Concurrent misses on the same key share one
+// query. Cached rows are copies and every caller gets copies of them, so changing a returned item
+// never changes the cache. Any write invalidates everything, since a changed price or name can move an item into or
+// out of any cached result.
+class QueryResultCache {
+
+    private final long maxRows;
+    private final long ttlMillis;
+
+    // accessOrder = true: iteration starts at the least recently used result
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<List<ClothingItem>>> inFlight = new ConcurrentHashMap<>();
+
+    private long retainedRows;
+    private long epoch;
+
+    private long hits;
+    private long misses;
+    private long sharedLoads;
+    private long evictions;
+
+    QueryResultCache(long maxRows, long ttlMillis) {
+        this.maxRows = maxRows;
+        this.ttlMillis = ttlMillis;
+    }
+
+    // Returns a list and items the caller may modify
+    List<ClothingItem> get(String key, Loader loader) throws SQLException {
+        if (maxRows == 0) {
+            return loader.load();
+        }
+
+        long loadEpoch;
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired()) {
+                    hits++;
+                    return copyOf(entry.rows);
+                }
+                remove(key);
+            }
+            misses++;
+            loadEpoch = epoch;
+        }
+
+        CompletableFuture<List<ClothingItem>> mine = new CompletableFuture<>();
+        CompletableFuture<List<ClothingItem>> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            synchronized (this) {
+                sharedLoads++;
+            }
+            return copyOf(await(running));
+        }
+
+        try {
+            List<ClothingItem> loaded = loader.load();
+            List<ClothingItem> rows = Collections.unmodifiableList(copyOf(loaded));
+            mine.complete(rows);
+            store(key, rows, loadEpoch);
+            return loaded;
+        } catch (SQLException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private synchronized void store(String key, List<ClothingItem> rows, long loadEpoch) {
+        // A write happened while loading, or the result alone is over budget
+        if (loadEpoch != epoch || rows.size() > maxRows) {
+            return;
+        }
+
+        remove(key);
+        entries.put(key, new Entry(rows, ttlMillis));
+        retainedRows += rows.size();
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (retainedRows > maxRows && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            retainedRows -= evicted.rows.size();
+            evictions++;
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            retainedRows -= removed.rows.size();
+        }
+    }
+
+    // Later calls start a new query instead of joining one that began before the write
+    synchronized void invalidateAll() {
+        epoch++;
+        entries.clear();
+        retainedRows = 0;
+        inFlight.clear();
+    }
+
+    private static List<ClothingItem> copyOf(List<ClothingItem> items) {
+        List<ClothingItem> copies = new ArrayList<>(items.size());
+        for (ClothingItem item : items) {
+            copies.add(item.copy());
+        }
+        return copies;
+    }
+
+    private static List<ClothingItem> await(CompletableFuture<List<ClothingItem>> running) throws SQLException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a shared query.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("Shared query failed.", cause);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getRetainedRows() {
+        return retainedRows;
+    }
+
+    synchronized long getHitCount() {
+        return hits;
+    }
+
+    synchronized long getMissCount() {
+        return misses;
+    }
+
+    synchronized long getSharedLoadCount() {
+        return sharedLoads;
+    }
+
+    synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    @FunctionalInterface
+    interface Loader {
+        List<ClothingItem> load() throws SQLException;
+    }
+
+    private static final class Entry {
+        private final List<ClothingItem> rows;
+        private final long expiresAt;
+
+        private Entry(List<ClothingItem> rows, long ttlMillis) {
+            this.rows = rows;
+            this.expiresAt = ttlMillis == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + ttlMillis;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
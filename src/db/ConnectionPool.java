@@ -0,0 +1,330 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectionPool {
+
+    private final String url;
+    private final Properties info;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+
+    // Limits how many connections can be handed out at the same time
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    // Closes expired idle connections even when nobody borrows; null when idleTimeoutMillis is 0
+    private final ScheduledExecutorService evictor;
+
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis) {
+        this(url, credentials(user, password), maxSize, idleTimeoutMillis, borrowTimeoutMillis);
+    }
+
+    // info holds the driver properties (user, password and any pgjdbc tuning options)
+    public ConnectionPool(String url, Properties info, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive.");
+        }
+        if (idleTimeoutMillis < 0 || borrowTimeoutMillis < 0) {
+            throw new IllegalArgumentException("timeouts cannot be negative.");
+        }
+        this.url = url;
+        this.info = new Properties();
+        this.info.putAll(info);
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = 2;
+        this.permits = new Semaphore(maxSize, true);
+
+        if (idleTimeoutMillis > 0) {
+            this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pool-idle-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1000, idleTimeoutMillis / 2);
+            evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictor = null;
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection.", e);
+        }
+        totalWaitNanos.addAndGet(System.nanoTime() - start);
+
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new SQLException("Timed out after " + borrowTimeoutMillis +
+                    " ms waiting for a connection (pool size " + maxSize + ").");
+        }
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(DriverManager.getConnection(url, info));
+                createdCount.incrementAndGet();
+            }
+            active.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // A connection outside the pool with the same settings, for sessions that stay open
+    // (e.g. LISTEN) and would otherwise hold a pool slot forever. The caller closes it.
+    public Connection openUnpooled() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        return DriverManager.getConnection(url, info);
+    }
+
+    private static Properties credentials(String user, String password) {
+        Properties info = new Properties();
+        info.setProperty("user", user);
+        info.setProperty("password", password);
+        return info;
+    }
+
+    // Returns a valid idle connection or null if a new one has to be opened
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isExpired(pooled) || !isValid(pooled)) {
+                discard(pooled);
+                continue;
+            }
+            return pooled;
+        }
+        return null;
+    }
+
+    private boolean isExpired(PooledConnection pooled) {
+        return idleTimeoutMillis > 0 &&
+                System.currentTimeMillis() - pooled.lastReturned > idleTimeoutMillis;
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        active.decrementAndGet();
+        try {
+            if (closed || !reset(pooled)) {
+                discard(pooled);
+            } else {
+                pooled.lastReturned = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Puts the connection back into the state a new caller expects
+    private boolean reset(PooledConnection pooled) {
+        try {
+            Connection physical = pooled.physical;
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        evictedCount.incrementAndGet();
+        DatabaseConnection.closeConnection(pooled.physical);
+    }
+
+    // Closes connections that stayed idle longer than the idle timeout
+    public void evictIdle() {
+        for (PooledConnection pooled : idle) {
+            if (isExpired(pooled) && idle.remove(pooled)) {
+                discard(pooled);
+            }
+        }
+    }
+
+    public void close() {
+        closed = true;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool(active=" + getActiveCount() +
+                ", idle=" + getIdleCount() +
+                ", max=" + maxSize +
+                ", borrows=" + getBorrowCount() +
+                ", avgWait=" + String.format("%.3f ms", getAverageWaitMillis()) + ")";
+    }
+
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastReturned = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        // Each lease gets its own proxy so a second close() on an old handle does nothing
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+    }
+
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        private LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.equals("close")) {
+                synchronized (this) {
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                }
+                return null;
+            }
+            if (name.equals("isClosed")) {
+                synchronized (this) {
+                    return returned || pooled.physical.isClosed();
+                }
+            }
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (name.equals("toString")) {
+                return "Pooled[" + pooled.physical + "]";
+            }
+
+            synchronized (this) {
+                if (returned) {
+                    throw new SQLException("Connection has already been returned to the pool.");
+                }
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,13 +1,46 @@
 package db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 
+// getConnection() always goes to the primary. getReadConnection() goes to a read replica when some
+// are configured, except for a thread inside a primarySession() or one that wrote recently, so a
+// caller always sees its own writes.
 public class DatabaseConnection {
-    private static final String URL = "jdbc:postgresql://localhost:5432/clothing_store_db";
-    private static final String USER = "postgres";
-    private static final String PASSWORD = "1234"; // change if needed
+    // Override with -Ddb.url=... etc.; db.replicas is a comma-separated list of replica URLs
+    private static final String URL = System.getProperty("db.url", "jdbc:postgresql://localhost:5432/clothing_store_db");
+    private static final String USER = System.getProperty("db.user", "postgres");
+    private static final String PASSWORD = System.getProperty("db.password", "1234"); // change if needed
+    private static final String REPLICA_URLS = System.getProperty("db.replicas", "");
+    private static final String READ_STRATEGY = System.getProperty("db.readStrategy", "ROUND_ROBIN");
+
+    // Pool settings (connections are reused instead of opening a new one per DAO call)
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_IDLE_TIMEOUT_MS = 5 * 60 * 1000;
+    private static final long POOL_BORROW_TIMEOUT_MS = 10 * 1000;
+
+    // pgjdbc statement cache (per connection). With prepareThreshold = 1 a statement becomes a named
+    // server-side prepared statement on its first use, so later calls on the same pooled connection
+    // skip parsing and planning.
+    public static final int PREPARE_THRESHOLD = 1;
+    private static final int STATEMENT_CACHE_QUERIES = 256;
+    private static final int STATEMENT_CACHE_SIZE_MIB = 5;
+
+    // Replicas more than MAX_REPLICA_LAG_MS behind are not used. After a write the same thread reads
+    // from the primary for READ_YOUR_WRITES_MS, which covers any lag a healthy replica can have.
+    private static final long REPLICA_CHECK_INTERVAL_MS = 2000;
+    private static final long MAX_REPLICA_LAG_MS = 1000;
+    private static final long READ_YOUR_WRITES_MS = MAX_REPLICA_LAG_MS + REPLICA_CHECK_INTERVAL_MS;
+
+    private static volatile ConnectionPool pool;
+    private static volatile ReadReplicas replicas;
+    private static volatile boolean replicasConfigured;
+
+    private static final ThreadLocal<Long> lastWriteNanos = new ThreadLocal<>();
+    private static final ThreadLocal<int[]> primarySessionDepth = ThreadLocal.withInitial(() -> new int[1]);
 
     static {
         try {
@@ -18,7 +51,161 @@ public class DatabaseConnection {
     }
 
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        return getPool().getConnection();
+    }
+
+    // For read-only statements that can tolerate replica lag (the primary is used if there is no healthy replica)
+    public static Connection getReadConnection() throws SQLException {
+        ReadReplicas current = getReplicas();
+        if (current == null || mustReadPrimary()) {
+            return getConnection();
+        }
+
+        Connection connection = current.getConnection();
+        return connection != null ? connection : getConnection();
+    }
+
+    private static boolean mustReadPrimary() {
+        if (primarySessionDepth.get()[0] > 0) {
+            return true;
+        }
+        Long lastWrite = lastWriteNanos.get();
+        return lastWrite != null && System.nanoTime() - lastWrite < READ_YOUR_WRITES_MS * 1_000_000;
+    }
+
+    // Called after a write so the current thread's next reads see it. getReplicas() and not the
+    // field, which stays null until the first read and would let a write before it go unrecorded.
+    public static void markWrite() {
+        if (getReplicas() != null) {
+            lastWriteNanos.set(System.nanoTime());
+        }
+    }
+
+    // The current thread's last write (null if none), so a task handed to another thread can
+    // carry it over with carryWriteMark() and still see that write (see AsyncClothingItemDAO)
+    public static Long getWriteMark() {
+        return lastWriteNanos.get();
+    }
+
+    public static void carryWriteMark(Long writeMark) {
+        if (writeMark != null) {
+            lastWriteNanos.set(writeMark);
+        }
+    }
+
+    // Every read on this thread goes to the primary until the session is closed, e.g. for a
+    // read-modify-write. Sessions can be nested.
+    public static PrimarySession primarySession() {
+        primarySessionDepth.get()[0]++;
+        return new PrimarySession();
+    }
+
+    // Same as running call inside a primarySession(), without a try resource the body never uses
+    public static <T> T onPrimary(PrimaryCall<T> call) throws SQLException {
+        primarySessionDepth.get()[0]++;
+        try {
+            return call.call();
+        } finally {
+            primarySessionDepth.get()[0]--;
+        }
+    }
+
+    // Not pooled: for long-lived sessions such as the change feed listener
+    public static Connection openDedicatedConnection() throws SQLException {
+        return getPool().openUnpooled();
+    }
+
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(URL, driverProperties(USER, PASSWORD, PREPARE_THRESHOLD),
+                            POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MS, POOL_BORROW_TIMEOUT_MS);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Lets tests point the DAO at another database (local Postgres or an embedded stand-in)
+    public static void configure(String url, String user, String password, int maxSize) {
+        configure(url, user, password, maxSize, PREPARE_THRESHOLD);
+    }
+
+    // prepareThreshold = 0 turns server-side prepared statements off (useful for comparisons)
+    public static synchronized void configure(String url, String user, String password, int maxSize,
+                                              int prepareThreshold) {
+        ConnectionPool old = pool;
+        pool = new ConnectionPool(url, driverProperties(user, password, prepareThreshold),
+                maxSize, POOL_IDLE_TIMEOUT_MS, POOL_BORROW_TIMEOUT_MS);
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    public static ReadReplicas getReplicas() {
+        if (!replicasConfigured) {
+            synchronized (DatabaseConnection.class) {
+                if (!replicasConfigured) {
+                    List<String> urls = new ArrayList<>();
+                    for (String url : REPLICA_URLS.split(",")) {
+                        if (!url.isBlank()) {
+                            urls.add(url.trim());
+                        }
+                    }
+                    configureReplicas(urls, USER, PASSWORD, POOL_MAX_SIZE,
+                            ReadReplicas.Strategy.valueOf(READ_STRATEGY));
+                }
+            }
+        }
+        return replicas;
+    }
+
+    // An empty list turns read routing off, so every read goes to the primary again
+    public static synchronized void configureReplicas(List<String> urls, String user, String password, int maxSize,
+                                                      ReadReplicas.Strategy strategy) {
+        ReadReplicas old = replicas;
+
+        if (urls.isEmpty()) {
+            replicas = null;
+        } else {
+            List<ConnectionPool> pools = new ArrayList<>();
+            for (String url : urls) {
+                pools.add(new ConnectionPool(url, driverProperties(user, password, PREPARE_THRESHOLD),
+                        maxSize, POOL_IDLE_TIMEOUT_MS, POOL_BORROW_TIMEOUT_MS));
+            }
+            replicas = new ReadReplicas(urls, pools, strategy, REPLICA_CHECK_INTERVAL_MS, MAX_REPLICA_LAG_MS);
+        }
+        replicasConfigured = true;
+
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    private static Properties driverProperties(String user, String password, int prepareThreshold) {
+        Properties info = new Properties();
+        info.setProperty("user", user);
+        info.setProperty("password", password);
+        info.setProperty("prepareThreshold", String.valueOf(prepareThreshold));
+        info.setProperty("preparedStatementCacheQueries", String.valueOf(STATEMENT_CACHE_QUERIES));
+        info.setProperty("preparedStatementCacheSizeMiB", String.valueOf(STATEMENT_CACHE_SIZE_MIB));
+        return info;
+    }
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+        if (replicas != null) {
+            replicas.close();
+            replicas = null;
+        }
+        replicasConfigured = false;
     }
 
     // Required by defense format (even if try-with-resources auto closes connections)
@@ -31,4 +218,24 @@ public class DatabaseConnection {
             }
         }
     }
+
+    @FunctionalInterface
+    public interface PrimaryCall<T> {
+        T call() throws SQLException;
+    }
+
+    public static final class PrimarySession implements AutoCloseable {
+        private boolean closed;
+
+        private PrimarySession() {
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                primarySessionDepth.get()[0]--;
+            }
+        }
+    }
 }
@@ -0,0 +1,168 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Chooses a replica pool for read-only queries. A background check measures each replica's round trip
+// and replication lag; replicas that fail the check or fall too far behind are skipped until they recover.
+// With no healthy replica the caller falls back to the primary.
+public class ReadReplicas {
+
+    public enum Strategy { ROUND_ROBIN, LEAST_LATENCY }
+
+    // Lag in milliseconds, or NULL for a node that must not serve reads: one that is not in recovery
+    // (promoted or never a standby) or whose WAL receiver is not streaming, since a disconnected
+    // standby has replayed all it received and would otherwise look caught up forever.
+    // A streaming replica that has replayed everything it received is caught up even if the primary
+    // was idle (pg_last_xact_replay_timestamp alone would then report a growing lag).
+    // pg_stat_wal_receiver.status is only visible to roles with pg_read_all_stats.
+    private static final String HEALTH_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() THEN NULL " +
+                    "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL " +
+                    "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+                    "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    // Weight of the newest sample in the latency average
+    private static final double LATENCY_SMOOTHING = 0.3;
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Strategy strategy;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+
+    ReadReplicas(List<String> urls, List<ConnectionPool> pools, Strategy strategy,
+                 long checkIntervalMillis, long maxLagMillis) {
+        if (checkIntervalMillis <= 0 || maxLagMillis <= 0) {
+            throw new IllegalArgumentException("check interval and max lag must be positive.");
+        }
+        for (int i = 0; i < pools.size(); i++) {
+            replicas.add(new Replica(urls.get(i), pools.get(i)));
+        }
+        this.strategy = strategy;
+        this.maxLagMillis = maxLagMillis;
+
+        this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::checkHealth, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Returns a connection to a healthy replica, or null if there is none
+    Connection getConnection() {
+        List<Replica> candidates = healthy();
+
+        while (!candidates.isEmpty()) {
+            Replica replica = choose(candidates);
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLException e) {
+                // Taken out of rotation until the next successful health check
+                replica.healthy = false;
+                candidates.remove(replica);
+            }
+        }
+        return null;
+    }
+
+    private List<Replica> healthy() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        return healthy;
+    }
+
+    private Replica choose(List<Replica> candidates) {
+        if (strategy == Strategy.ROUND_ROBIN) {
+            return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+        }
+
+        Replica best = candidates.get(0);
+        for (Replica replica : candidates) {
+            if (replica.latencyMillis < best.latencyMillis) {
+                best = replica;
+            }
+        }
+        return best;
+    }
+
+    // Also callable directly, e.g. right after configuring, to avoid waiting for the first scheduled run
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            long start = System.nanoTime();
+
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(HEALTH_SQL)) {
+
+                resultSet.next();
+                double lag = resultSet.getDouble(1);
+                boolean standby = !resultSet.wasNull();
+                double latency = (System.nanoTime() - start) / 1_000_000.0;
+
+                replica.lagMillis = standby ? lag : Double.NaN;
+                replica.latencyMillis = replica.checks == 0 ? latency
+                        : LATENCY_SMOOTHING * latency + (1 - LATENCY_SMOOTHING) * replica.latencyMillis;
+                replica.healthy = standby && lag <= maxLagMillis;
+            } catch (SQLException | RuntimeException e) {
+                replica.healthy = false;
+            }
+            replica.checks++;
+        }
+    }
+
+    public int getHealthyCount() {
+        return healthy().size();
+    }
+
+    void close() {
+        checker.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("ReadReplicas(" + strategy);
+        for (Replica replica : replicas) {
+            text.append(", ").append(replica);
+        }
+        return text.append(")").toString();
+    }
+
+    private static final class Replica {
+        private final String url;
+        private final ConnectionPool pool;
+
+        // Written by the health check thread, read by every borrower
+        private volatile boolean healthy;
+        private volatile double latencyMillis;
+        private volatile double lagMillis;
+        private volatile long checks;
+
+        private Replica(String url, ConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+
+        @Override
+        public String toString() {
+            return url + (healthy ? " up" : " down") +
+                    String.format(" latency=%.2f ms lag=%.0f ms ", latencyMillis, lagMillis) + pool;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+// Applies the scripts in sql/migrations in order and records them in schema_migrations.
+// Every script is written to be idempotent so it is also safe on a database created from schema.sql.
+public class SchemaMigrator {
+
+    private static final String RESOURCE_DIR = "/sql/migrations/";
+
+    // Add new scripts at the end; never rename or reorder applied ones
+    private static final String[] MIGRATIONS = {
+            "V1__create_clothing_items.sql",
+            "V2__search_indexes.sql",
+            "V3__discount_campaigns.sql",
+            "V4__report_summaries.sql",
+            "V5__change_log.sql",
+            "V6__item_id_sequence.sql",
+            "V7__item_version.sql",
+            "V8__partition_by_type.sql",
+            "V9__campaign_schedule.sql"
+    };
+
+    // Any constant works; it only serializes migrators started at the same time
+    private static final long LOCK_KEY = 0x636c6f746869L;
+
+    public int migrate() throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT pg_advisory_xact_lock(" + LOCK_KEY + ")");
+                    statement.execute("CREATE TABLE IF NOT EXISTS schema_migrations (" +
+                            "version INT PRIMARY KEY, " +
+                            "name VARCHAR(200) NOT NULL, " +
+                            "applied_at TIMESTAMP NOT NULL DEFAULT now())");
+                }
+
+                Set<Integer> applied = loadApplied(connection);
+                int count = 0;
+
+                for (String name : MIGRATIONS) {
+                    int version = versionOf(name);
+                    if (applied.contains(version)) {
+                        continue;
+                    }
+
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute(readScript(name));
+                    }
+                    try (PreparedStatement statement = connection.prepareStatement(
+                            "INSERT INTO schema_migrations (version, name) VALUES (?, ?)")) {
+                        statement.setInt(1, version);
+                        statement.setString(2, name);
+                        statement.executeUpdate();
+                    }
+                    count++;
+                }
+
+                connection.commit();
+                return count;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private Set<Integer> loadApplied(Connection connection) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT version FROM schema_migrations")) {
+            while (resultSet.next()) {
+                versions.add(resultSet.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private static int versionOf(String name) {
+        return Integer.parseInt(name.substring(1, name.indexOf("__")));
+    }
+
+    private static String readScript(String name) throws SQLException {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(RESOURCE_DIR + name)) {
+            if (in == null) {
+                throw new SQLException("Migration script not found on classpath: " + RESOURCE_DIR + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Cannot read migration script " + name, e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package exception;
+
+import java.sql.SQLException;
+
+// Thrown when a bulk insert or a batch of writes fails; the whole batch is rolled back
+public class BatchInsertException extends SQLException {
+
+    private final int failedIndex;
+    private final int failedItemId;
+
+    public BatchInsertException(String message, int failedIndex, int failedItemId, SQLException cause) {
+        super(message, cause == null ? null : cause.getSQLState(), cause);
+        this.failedIndex = failedIndex;
+        this.failedItemId = failedItemId;
+    }
+
+    // Position of the failing item (or write) in the input, or -1 if unknown
+    public int getFailedIndex() {
+        return failedIndex;
+    }
+
+    // item_id of the failing item, or -1 if unknown
+    public int getFailedItemId() {
+        return failedItemId;
+    }
+}
@@ -0,0 +1,23 @@
+package exception;
+
+import java.io.IOException;
+
+// A supplier feed record that cannot be parsed or does not describe a valid item
+public class FeedFormatException extends IOException {
+
+    private final long line;
+
+    public FeedFormatException(String message, long line) {
+        super("Line " + line + ": " + message);
+        this.line = line;
+    }
+
+    public FeedFormatException(String message, long line, Throwable cause) {
+        super("Line " + line + ": " + message, cause);
+        this.line = line;
+    }
+
+    public long getLine() {
+        return line;
+    }
+}
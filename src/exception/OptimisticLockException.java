@@ -0,0 +1,35 @@
+package exception;
+
+import java.sql.SQLException;
+
+// Thrown by a versioned update when the row was changed by someone else after it was read.
+// Reload the item and apply the change again (see dao.OptimisticRetry).
+public class OptimisticLockException extends SQLException {
+
+    // Same SQLSTATE as a serialization failure, so generic retry logic treats it as retryable
+    private static final String SQL_STATE = "40001";
+
+    private final int itemId;
+    private final int expectedVersion;
+    private final int actualVersion;
+
+    public OptimisticLockException(int itemId, int expectedVersion, int actualVersion) {
+        super("Item " + itemId + " was changed by someone else (expected version " + expectedVersion +
+                ", found " + actualVersion + ")", SQL_STATE);
+        this.itemId = itemId;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public int getActualVersion() {
+        return actualVersion;
+    }
+}
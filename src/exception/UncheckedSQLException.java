@@ -0,0 +1,15 @@
+package exception;
+
+import java.sql.SQLException;
+
+// Carries a SQLException out of code that cannot throw checked exceptions (streams, callbacks)
+public class UncheckedSQLException extends RuntimeException {
+    public UncheckedSQLException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -1,19 +1,32 @@
 package menu;
 
-import dao.ClothingItemDAO;
+import change.ChangeFeedListener;
+import dao.CachingClothingItemDAO;
+import dao.Page;
 import exception.InvalidInputException;
+import exception.OptimisticLockException;
+import metrics.DaoMetrics;
 import model.ClothingItem;
 import model.Jacket;
 import model.Shirt;
+import report.CatalogReport;
+import report.CatalogValue;
+import report.HistogramBucket;
+import report.PriceStats;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class MenuManager implements Menu {
 
     private final Scanner scanner = new Scanner(System.in);
-    private final ClothingItemDAO dao = new ClothingItemDAO();
+    private final CachingClothingItemDAO dao = new CachingClothingItemDAO();
+    private final ChangeFeedListener changeFeed = new ChangeFeedListener();
+    private final CatalogReport report = new CatalogReport();
+
+    private static final int PAGE_SIZE = 20;
 
     @Override
     public void displayMenu() {
@@ -30,6 +43,9 @@ public class MenuManager implements Menu {
         System.out.println("10. Search by Name (ILIKE)");
         System.out.println("11. Search by Price Range (BETWEEN)");
         System.out.println("12. Search by Min Price (>=)");
+        System.out.println("13. Show DAO Metrics");
+        System.out.println("14. Inventory Report");
+        System.out.println("15. Get Items by IDs (getByIds)");
         System.out.println("0. Exit");
         System.out.print("Choose: ");
     }
@@ -38,6 +54,10 @@ public class MenuManager implements Menu {
     public void run() {
         boolean running = true;
 
+        // Keeps the getById cache in sync with writes made by other clients
+        changeFeed.subscribe(dao);
+        changeFeed.start();
+
         try {
             while (running) {
                 displayMenu();
@@ -48,9 +68,9 @@ public class MenuManager implements Menu {
                     switch (choice) {
                         case 1: addShirt(); break;
                         case 2: addJacket(); break;
-                        case 3: printItems(dao.getAll()); break;
-                        case 4: printItems(dao.getByType("SHIRT")); break;
-                        case 5: printItems(dao.getByType("JACKET")); break;
+                        case 3: printPages(token -> dao.getAllPage(PAGE_SIZE, token)); break;
+                        case 4: printPages(token -> dao.getByTypePage("SHIRT", PAGE_SIZE, token)); break;
+                        case 5: printPages(token -> dao.getByTypePage("JACKET", PAGE_SIZE, token)); break;
                         case 6: getById(); break;
                         case 7: updateShirt(); break;
                         case 8: updateJacket(); break;
@@ -58,6 +78,9 @@ public class MenuManager implements Menu {
                         case 10: searchByName(); break;
                         case 11: searchByPriceRange(); break;
                         case 12: searchByMinPrice(); break;
+                        case 13: printMetrics(); break;
+                        case 14: printReport(); break;
+                        case 15: getByIds(); break;
                         case 0:
                             running = false;
                             System.out.println("Goodbye!");
@@ -77,6 +100,7 @@ public class MenuManager implements Menu {
                 }
             }
         } finally {
+            changeFeed.close();
             scanner.close();
         }
     }
@@ -84,27 +108,23 @@ public class MenuManager implements Menu {
     // -------------------- INSERT --------------------
 
     private void addShirt() throws InvalidInputException, SQLException {
-        int id = readInt("Item ID: ");
         String name = readText("Name: ");
         String size = readText("Size: ");
         double price = readDouble("Price: ");
         String sleeves = readText("Sleeve type: ");
 
-        Shirt shirt = new Shirt(id, name, size, price, sleeves);
-        boolean ok = dao.insertShirt(shirt);
-        System.out.println(ok ? "Inserted." : "Insert failed.");
+        int id = dao.insertShirt(name, size, price, sleeves);
+        System.out.println("Inserted with ID " + id + ".");
     }
 
     private void addJacket() throws InvalidInputException, SQLException {
-        int id = readInt("Item ID: ");
         String name = readText("Name: ");
         String size = readText("Size: ");
         double price = readDouble("Price: ");
         String season = readText("Season: ");
 
-        Jacket jacket = new Jacket(id, name, size, price, season);
-        boolean ok = dao.insertJacket(jacket);
-        System.out.println(ok ? "Inserted." : "Insert failed.");
+        int id = dao.insertJacket(name, size, price, season);
+        System.out.println("Inserted with ID " + id + ".");
     }
 
     // -------------------- SELECT --------------------
@@ -122,6 +142,20 @@ public class MenuManager implements Menu {
         System.out.println("10% off price: " + String.format("%.2f KZT", item.getDiscountedPrice(10)));
     }
 
+    private void getByIds() throws InvalidInputException, SQLException {
+        String[] parts = readText("Enter item IDs (comma separated): ").split(",");
+        int[] ids = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            ids[i] = Integer.parseInt(parts[i].trim());
+        }
+
+        Map<Integer, ClothingItem> items = dao.getByIds(ids);
+        for (int id : ids) {
+            ClothingItem item = items.get(id);
+            System.out.println(item != null ? item : "ID " + id + ": not found.");
+        }
+    }
+
     // -------------------- UPDATE --------------------
 
     private void updateShirt() throws InvalidInputException, SQLException {
@@ -142,10 +176,16 @@ public class MenuManager implements Menu {
         double price = readDouble("New price: ");
         String sleeves = readText("New sleeve type: ");
 
-        new Shirt(id, name, size, price, sleeves);
+        // Only written if nobody changed the item while the new values were typed in
+        Shirt updated = new Shirt(id, name, size, price, sleeves);
+        updated.setVersion(existing.getVersion());
 
-        boolean ok = dao.updateShirt(id, name, size, price, sleeves);
-        System.out.println(ok ? "Updated." : "Update failed.");
+        try {
+            boolean ok = dao.updateShirt(updated);
+            System.out.println(ok ? "Updated." : "Item was deleted meanwhile.");
+        } catch (OptimisticLockException e) {
+            System.out.println("Item was changed by someone else meanwhile. Load it again and retry.");
+        }
     }
 
     private void updateJacket() throws InvalidInputException, SQLException {
@@ -166,10 +206,16 @@ public class MenuManager implements Menu {
         double price = readDouble("New price: ");
         String season = readText("New season: ");
 
-        new Jacket(id, name, size, price, season);
+        // Only written if nobody changed the item while the new values were typed in
+        Jacket updated = new Jacket(id, name, size, price, season);
+        updated.setVersion(existing.getVersion());
 
-        boolean ok = dao.updateJacket(id, name, size, price, season);
-        System.out.println(ok ? "Updated." : "Update failed.");
+        try {
+            boolean ok = dao.updateJacket(updated);
+            System.out.println(ok ? "Updated." : "Item was deleted meanwhile.");
+        } catch (OptimisticLockException e) {
+            System.out.println("Item was changed by someone else meanwhile. Load it again and retry.");
+        }
     }
 
     // -------------------- DELETE --------------------
@@ -199,7 +245,7 @@ public class MenuManager implements Menu {
 
     private void searchByName() throws InvalidInputException, SQLException {
         String part = readText("Name contains: ");
-        printItems(dao.searchByName(part));
+        printPages(token -> dao.searchByNamePage(part, PAGE_SIZE, token));
     }
 
     private void searchByPriceRange() throws InvalidInputException, SQLException {
@@ -211,24 +257,79 @@ public class MenuManager implements Menu {
             return;
         }
 
-        printItems(dao.searchByPriceRange(min, max));
+        printPages(token -> dao.searchByPriceRangePage(min, max, PAGE_SIZE, token));
     }
 
     private void searchByMinPrice() throws InvalidInputException, SQLException {
         double min = readDouble("Min price: ");
-        printItems(dao.searchByMinPrice(min));
+        printPages(token -> dao.searchByMinPricePage(min, PAGE_SIZE, token));
+    }
+
+    // -------------------- Metrics --------------------
+
+    private void printMetrics() {
+        String[] summaries = DaoMetrics.get().getMethodSummaries();
+        if (summaries.length == 0) {
+            System.out.println("No DAO calls recorded yet.");
+            return;
+        }
+        for (String summary : summaries) {
+            System.out.println(summary);
+        }
+    }
+
+    // -------------------- Report --------------------
+
+    private void printReport() throws InvalidInputException, SQLException {
+        printStats("By type", report.statsByType());
+        printStats("By size", report.statsBySize());
+        printStats("By season", report.statsBySeason());
+
+        int buckets = readInt("Price histogram buckets: ");
+        System.out.println("Price histogram:");
+        for (HistogramBucket bucket : report.priceHistogram(buckets)) {
+            System.out.println(bucket);
+        }
+
+        CatalogValue value = report.totalValue();
+        System.out.println("Total value: " + value.getPriceLabel());
+        System.out.println("With 10% off: " + String.format("%.2f KZT", value.getDiscountedPrice(10)));
+    }
+
+    private void printStats(String title, List<PriceStats> stats) {
+        System.out.println(title + ":");
+        if (stats.isEmpty()) {
+            System.out.println("No items.");
+        }
+        for (PriceStats group : stats) {
+            System.out.println(group);
+        }
     }
 
     // -------------------- Helpers --------------------
 
-    private void printItems(List<ClothingItem> items) {
-        if (items.isEmpty()) {
+    // Prints one page at a time and asks before loading the next one
+    private void printPages(PageQuery query) throws SQLException {
+        Page<ClothingItem> page = query.fetch(null);
+
+        if (page.isEmpty()) {
             System.out.println("No results.");
             return;
         }
 
-        for (ClothingItem item : items) {
-            System.out.println(item);
+        while (true) {
+            for (ClothingItem item : page.getItems()) {
+                System.out.println(item);
+            }
+            if (!page.hasNext()) {
+                return;
+            }
+
+            System.out.print("Show more? (y/n): ");
+            if (!scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                return;
+            }
+            page = query.fetch(page.getNextToken());
         }
     }
 
@@ -250,4 +351,8 @@ public class MenuManager implements Menu {
         String text = readText(prompt);
         return Double.parseDouble(text);
     }
+
+    private interface PageQuery {
+        Page<ClothingItem> fetch(String token) throws SQLException;
+    }
 }
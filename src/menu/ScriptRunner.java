@@ -0,0 +1,334 @@
+package menu;
+
+import dao.AsyncClothingItemDAO;
+import dao.ClothingItemDAO;
+import dao.ItemWrite;
+import exception.BatchInsertException;
+import exception.InvalidInputException;
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Runs menu operations from a script instead of prompts (Main --script ops.txt, or --script - for stdin).
+// The whole script is parsed first, so a typo on line 900 is reported before anything runs.
+// Consecutive writes go to the database as one batched transaction, consecutive reads run
+// concurrently, and results are written in script order through a buffered writer.
+//
+// One command per line; arguments after the command are separated by '|'; '#' starts a comment:
+//   add-shirt auto | Oxford | M | 12000 | Long        (or an item ID instead of auto)
+//   add-jacket 42 | Parka | L | 45000 | Winter
+//   update-shirt 7 | Oxford | L | 11000 | Short
+//   update-jacket 42 | Parka | XL | 43000 | Winter
+//   delete 7
+//   get 42  |  all  |  type SHIRT  |  name parka  |  price 10000 | 20000  |  min-price 30000
+public class ScriptRunner {
+
+    // Longer runs of writes are split so one transaction does not hold row locks for too long
+    private static final int MAX_WRITES_PER_TRANSACTION = 1000;
+
+    // An auto ID can only collide with an ID entered by hand or from a feed, like in ClothingItemDAO
+    private static final int MAX_ID_RETRIES = 3;
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final ClothingItemDAO dao;
+
+    public ScriptRunner(ClothingItemDAO dao) {
+        this.dao = dao;
+    }
+
+    // Returns the number of commands executed
+    public int run(BufferedReader input, Writer output) throws InvalidInputException, SQLException, IOException {
+        List<Command> commands = parse(input);
+
+        try (AsyncClothingItemDAO async = new AsyncClothingItemDAO(dao)) {
+            int from = 0;
+            while (from < commands.size()) {
+                boolean write = commands.get(from).isWrite();
+                int to = from;
+                while (to < commands.size() && commands.get(to).isWrite() == write
+                        && (!write || to - from < MAX_WRITES_PER_TRANSACTION)) {
+                    to++;
+                }
+
+                List<Command> run = commands.subList(from, to);
+                if (write) {
+                    runWrites(run, output);
+                } else {
+                    runReads(run, async, output);
+                }
+                from = to;
+            }
+        } finally {
+            output.flush();
+        }
+        return commands.size();
+    }
+
+    // -------------------- Parsing --------------------
+
+    public List<Command> parse(BufferedReader input) throws InvalidInputException, IOException {
+        List<Command> commands = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+
+        while ((line = input.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String text = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+
+            try {
+                commands.add(parseLine(lineNumber, text));
+            } catch (IllegalArgumentException e) {
+                errors.add("line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new InvalidInputException("Script has " + errors.size() + " error(s):\n  " + String.join("\n  ", errors));
+        }
+        return commands;
+    }
+
+    private static Command parseLine(int lineNumber, String text) {
+        int space = text.indexOf(' ');
+        String name = (space < 0 ? text : text.substring(0, space)).toLowerCase(Locale.ROOT);
+        String[] args = space < 0 ? new String[0] : text.substring(space + 1).split("\\|", -1);
+        for (int i = 0; i < args.length; i++) {
+            args[i] = args[i].trim();
+        }
+
+        Command command = new Command(lineNumber, name, args);
+        switch (name) {
+            case "add-shirt":
+            case "add-jacket":
+                expectArgs(command, 5);
+                if (!args[0].equalsIgnoreCase("auto")) {
+                    parseId(args[0]);
+                }
+                // Builds the item once so invalid values fail here and not halfway through the run
+                command.buildItem(1);
+                break;
+            case "update-shirt":
+            case "update-jacket":
+                expectArgs(command, 5);
+                command.buildItem(parseId(args[0]));
+                break;
+            case "delete":
+            case "get":
+                expectArgs(command, 1);
+                parseId(args[0]);
+                break;
+            case "all":
+                expectArgs(command, 0);
+                break;
+            case "type":
+                expectArgs(command, 1);
+                if (!args[0].equalsIgnoreCase("SHIRT") && !args[0].equalsIgnoreCase("JACKET")) {
+                    throw new IllegalArgumentException("type must be SHIRT or JACKET.");
+                }
+                break;
+            case "name":
+                expectArgs(command, 1);
+                break;
+            case "price":
+                expectArgs(command, 2);
+                if (parsePrice(args[0]) > parsePrice(args[1])) {
+                    throw new IllegalArgumentException("min price cannot be bigger than max price.");
+                }
+                break;
+            case "min-price":
+                expectArgs(command, 1);
+                parsePrice(args[0]);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown command '" + name + "'.");
+        }
+        return command;
+    }
+
+    private static void expectArgs(Command command, int count) {
+        int given = command.args.length == 1 && command.args[0].isEmpty() ? 0 : command.args.length;
+        if (given != count) {
+            throw new IllegalArgumentException(command.name + " takes " + count + " argument(s), got " + given + ".");
+        }
+    }
+
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + text + "' is not a valid item ID.");
+        }
+    }
+
+    private static double parsePrice(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + text + "' is not a valid price.");
+        }
+    }
+
+    // -------------------- Execution --------------------
+
+    private void runWrites(List<Command> run, Writer output) throws SQLException, IOException {
+        List<ItemWrite> writes = new ArrayList<>(run.size());
+        for (Command command : run) {
+            writes.add(command.toWrite(dao));
+        }
+
+        int[] counts = applyWrites(run, writes);
+
+        for (int i = 0; i < run.size(); i++) {
+            Command command = run.get(i);
+            String result;
+            if (command.name.startsWith("add-")) {
+                result = "Inserted with ID " + writes.get(i).getItemId() + ".";
+            } else if (counts[i] == 0) {
+                result = "Item " + writes.get(i).getItemId() + " not found.";
+            } else {
+                result = command.name.equals("delete") ? "Deleted." : "Updated.";
+            }
+            writeLine(output, command, result);
+        }
+    }
+
+    // The transaction is all or nothing, so after an auto ID collides the whole run is sent again
+    // with a new ID for that insert
+    private int[] applyWrites(List<Command> run, List<ItemWrite> writes) throws SQLException {
+        for (int retry = 0; ; retry++) {
+            try {
+                return dao.applyWrites(writes);
+            } catch (BatchInsertException e) {
+                int failed = e.getFailedIndex();
+                if (retry >= MAX_ID_RETRIES || failed < 0 || !UNIQUE_VIOLATION.equals(e.getSQLState())
+                        || !run.get(failed).hasAutoId()) {
+                    throw e;
+                }
+                writes.set(failed, run.get(failed).toWrite(dao));
+            }
+        }
+    }
+
+    private void runReads(List<Command> run, AsyncClothingItemDAO async, Writer output)
+            throws SQLException, IOException {
+        List<CompletableFuture<List<ClothingItem>>> results = new ArrayList<>(run.size());
+        for (Command command : run) {
+            results.add(command.read(async));
+        }
+
+        for (int i = 0; i < run.size(); i++) {
+            Command command = run.get(i);
+            List<ClothingItem> items;
+            try {
+                items = results.get(i).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw e;
+            }
+
+            if (items.isEmpty()) {
+                writeLine(output, command, "No results.");
+            }
+            for (ClothingItem item : items) {
+                writeLine(output, command, item.toString());
+            }
+        }
+    }
+
+    private static void writeLine(Writer output, Command command, String text) throws IOException {
+        output.write("[line ");
+        output.write(Integer.toString(command.lineNumber));
+        output.write("] ");
+        output.write(text);
+        output.write(System.lineSeparator());
+    }
+
+    // One parsed script line
+    public static final class Command {
+        private final int lineNumber;
+        private final String name;
+        private final String[] args;
+
+        private Command(int lineNumber, String name, String[] args) {
+            this.lineNumber = lineNumber;
+            this.name = name;
+            this.args = args;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isWrite() {
+            return name.startsWith("add-") || name.startsWith("update-") || name.equals("delete");
+        }
+
+        private ClothingItem buildItem(int itemId) {
+            double price = parsePrice(args[3]);
+            if (name.endsWith("shirt")) {
+                return new Shirt(itemId, args[1], args[2], price, args[4]);
+            }
+            return new Jacket(itemId, args[1], args[2], price, args[4]);
+        }
+
+        private boolean hasAutoId() {
+            return name.startsWith("add-") && args[0].equalsIgnoreCase("auto");
+        }
+
+        // Allocates a new ID on every call for "auto"
+        private ItemWrite toWrite(ClothingItemDAO dao) throws SQLException {
+            if (name.equals("delete")) {
+                return ItemWrite.delete(parseId(args[0]));
+            }
+            if (name.startsWith("add-")) {
+                int itemId = hasAutoId() ? dao.allocateItemId() : parseId(args[0]);
+                return ItemWrite.insert(buildItem(itemId));
+            }
+            return ItemWrite.update(buildItem(parseId(args[0])));
+        }
+
+        private CompletableFuture<List<ClothingItem>> read(AsyncClothingItemDAO async) {
+            switch (name) {
+                case "get":
+                    return async.getById(parseId(args[0])).thenApply(item -> {
+                        List<ClothingItem> items = new ArrayList<>(1);
+                        if (item != null) {
+                            items.add(item);
+                        }
+                        return items;
+                    });
+                case "all":
+                    return async.getAll();
+                case "type":
+                    return async.getByType(args[0].toUpperCase(Locale.ROOT));
+                case "name":
+                    return async.searchByName(args[0]);
+                case "price":
+                    return async.searchByPriceRange(parsePrice(args[0]), parsePrice(args[1]));
+                default:
+                    return async.searchByMinPrice(parsePrice(args[0]));
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Process-wide metrics for DAO calls. Recording is a few atomic adds, so it is always on.
+public class DaoMetrics implements DaoMetricsMBean {
+
+    public static final String OBJECT_NAME = "clothingstore:type=DaoMetrics";
+
+    private static final DaoMetrics INSTANCE = new DaoMetrics();
+    private static final Logger SLOW_QUERY_LOG = Logger.getLogger("dao.slowquery");
+
+    // Prometheus histogram bucket limits in seconds
+    private static final double[] BUCKETS_SECONDS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5};
+
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final LatencyHistogram connectionAcquire = new LatencyHistogram();
+
+    private volatile long slowQueryThresholdNanos = 500_000_000L;
+
+    private boolean registered;
+
+    public static DaoMetrics get() {
+        return INSTANCE;
+    }
+
+    public void recordCall(String method, String sql, Object[] params, long startNanos, long rows, boolean failed) {
+        long elapsed = System.nanoTime() - startNanos;
+        boolean slow = elapsed >= slowQueryThresholdNanos;
+
+        methods.computeIfAbsent(method, MethodMetrics::new).record(elapsed, rows, failed, slow);
+
+        if (slow) {
+            SLOW_QUERY_LOG.warning(String.format(Locale.ROOT, "Slow query in %s: %.1f ms, rows=%d%s%n  SQL: %s%n  params: %s",
+                    method, elapsed / 1e6, rows, failed ? " (failed)" : "", sql, Arrays.deepToString(params)));
+        }
+    }
+
+    public void recordConnectionAcquire(long nanos) {
+        connectionAcquire.record(nanos);
+    }
+
+    public MethodMetrics getMethod(String method) {
+        return methods.get(method);
+    }
+
+    public LatencyHistogram getConnectionAcquire() {
+        return connectionAcquire;
+    }
+
+    // Registers this object with the platform MBean server; safe to call more than once
+    public synchronized void registerMBean() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName(OBJECT_NAME));
+            registered = true;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register DAO metrics MBean", e);
+        }
+    }
+
+    // -------------------- MBean --------------------
+
+    @Override
+    public long getTotalCalls() {
+        long total = 0;
+        for (MethodMetrics metrics : methods.values()) {
+            total += metrics.getCalls();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalErrors() {
+        long total = 0;
+        for (MethodMetrics metrics : methods.values()) {
+            total += metrics.getErrors();
+        }
+        return total;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdNanos / 1_000_000;
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("threshold cannot be negative.");
+        }
+        slowQueryThresholdNanos = millis * 1_000_000;
+    }
+
+    @Override
+    public double getConnectionAcquireP99Millis() {
+        return connectionAcquire.getPercentile(99) / 1e6;
+    }
+
+    @Override
+    public String[] getMethodSummaries() {
+        List<String> lines = new ArrayList<>();
+        for (MethodMetrics metrics : new TreeMap<>(methods).values()) {
+            lines.add(metrics.toString());
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public String getPrometheusText() {
+        StringBuilder out = new StringBuilder();
+        Map<String, MethodMetrics> sorted = new TreeMap<>(methods);
+
+        out.append("# HELP dao_call_duration_seconds Latency of ClothingItemDAO calls.\n");
+        out.append("# TYPE dao_call_duration_seconds histogram\n");
+        for (MethodMetrics metrics : sorted.values()) {
+            appendHistogram(out, "dao_call_duration_seconds", "method=\"" + metrics.getName() + "\"",
+                    metrics.getLatency());
+        }
+
+        out.append("# HELP dao_call_rows_total Rows returned or written by ClothingItemDAO calls.\n");
+        out.append("# TYPE dao_call_rows_total counter\n");
+        for (MethodMetrics metrics : sorted.values()) {
+            out.append("dao_call_rows_total{method=\"").append(metrics.getName()).append("\"} ")
+                    .append(metrics.getRows()).append('\n');
+        }
+
+        out.append("# HELP dao_call_errors_total Failed ClothingItemDAO calls.\n");
+        out.append("# TYPE dao_call_errors_total counter\n");
+        for (MethodMetrics metrics : sorted.values()) {
+            out.append("dao_call_errors_total{method=\"").append(metrics.getName()).append("\"} ")
+                    .append(metrics.getErrors()).append('\n');
+        }
+
+        out.append("# HELP dao_slow_calls_total Calls slower than the slow query threshold.\n");
+        out.append("# TYPE dao_slow_calls_total counter\n");
+        for (MethodMetrics metrics : sorted.values()) {
+            out.append("dao_slow_calls_total{method=\"").append(metrics.getName()).append("\"} ")
+                    .append(metrics.getSlowCalls()).append('\n');
+        }
+
+        out.append("# HELP dao_connection_acquire_seconds Time spent waiting for a pooled connection.\n");
+        out.append("# TYPE dao_connection_acquire_seconds histogram\n");
+        appendHistogram(out, "dao_connection_acquire_seconds", "", connectionAcquire);
+
+        return out.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (MethodMetrics metrics : methods.values()) {
+            metrics.reset();
+        }
+        connectionAcquire.reset();
+    }
+
+    private static void appendHistogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+
+        for (double bucket : BUCKETS_SECONDS) {
+            long count = histogram.countAtOrBelow((long) (bucket * 1e9));
+            out.append(name).append("_bucket{").append(prefix).append("le=\"")
+                    .append(format(bucket)).append("\"} ").append(count).append('\n');
+        }
+        out.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ")
+                .append(histogram.getCount()).append('\n');
+
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(braces).append(' ')
+                .append(format(histogram.getSum() / 1e9)).append('\n');
+        out.append(name).append("_count").append(braces).append(' ')
+                .append(histogram.getCount()).append('\n');
+    }
+
+    private static String format(double value) {
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,20 @@
+package metrics;
+
+// JMX view of DaoMetrics (ObjectName "clothingstore:type=DaoMetrics")
+public interface DaoMetricsMBean {
+    long getTotalCalls();
+
+    long getTotalErrors();
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long millis);
+
+    double getConnectionAcquireP99Millis();
+
+    String[] getMethodSummaries();
+
+    String getPrometheusText();
+
+    void reset();
+}
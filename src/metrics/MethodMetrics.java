@@ -0,0 +1,68 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters for one DAO method
+public class MethodMetrics {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+
+    MethodMetrics(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos, long rowCount, boolean failed, boolean slow) {
+        latency.record(nanos);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+        if (failed) {
+            errors.increment();
+        }
+        if (slow) {
+            slowCalls.increment();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getSlowCalls() {
+        return slowCalls.sum();
+    }
+
+    void reset() {
+        latency.reset();
+        rows.reset();
+        errors.reset();
+        slowCalls.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s calls=%d errors=%d rows=%d p50=%.3fms p99=%.3fms max=%.3fms",
+                name, getCalls(), getErrors(), getRows(),
+                latency.getPercentile(50) / 1e6, latency.getPercentile(99) / 1e6, latency.getMax() / 1e6);
+    }
+}
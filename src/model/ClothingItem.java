@@ -7,6 +7,9 @@ public abstract class ClothingItem implements Discountable {
     protected String size;
     protected double price;
 
+    // Row version read from the database; 0 for items that were never stored
+    protected int version;
+
     protected ClothingItem(int itemId, String name, String size, double price) {
         setItemId(itemId);
         setName(name);
@@ -14,9 +17,24 @@ public abstract class ClothingItem implements Discountable {
         setPrice(price);
     }
 
+    // Only for fromDatabase factories: rows in clothing_items were validated when they were written
+    protected ClothingItem() {
+    }
+
+    protected void setStoredFields(int itemId, String name, String size, double price, int version) {
+        this.itemId = itemId;
+        this.name = name;
+        this.size = size;
+        this.price = price;
+        this.version = version;
+    }
+
     // Used for database mapping (SHIRT / JACKET)
     public abstract String getType();
 
+    // Independent copy with the same fields and version, for caches that must not share instances
+    public abstract ClothingItem copy();
+
     public int getItemId() {
         return itemId;
     }
@@ -33,6 +51,10 @@ public abstract class ClothingItem implements Discountable {
         return price;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     // Week 6 rule: setters validate and throw exceptions (no printing)
     public void setItemId(int itemId) {
         if (itemId <= 0) {
@@ -41,6 +63,13 @@ public abstract class ClothingItem implements Discountable {
         this.itemId = itemId;
     }
 
+    public void setVersion(int version) {
+        if (version < 0) {
+            throw new IllegalArgumentException("version cannot be negative.");
+        }
+        this.version = version;
+    }
+
     public void setName(String name) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("name cannot be empty.");
@@ -9,6 +9,23 @@ public class Jacket extends ClothingItem {
         setSeason(season);
     }
 
+    private Jacket() {
+    }
+
+    // Builds an item from a database row without re-running the setter validation
+    public static Jacket fromDatabase(int itemId, String name, String size, double price, String season,
+                                      int version) {
+        Jacket jacket = new Jacket();
+        jacket.setStoredFields(itemId, name, size, price, version);
+        jacket.season = season;
+        return jacket;
+    }
+
+    @Override
+    public Jacket copy() {
+        return fromDatabase(itemId, name, size, price, season, version);
+    }
+
     @Override
     public String getType() {
         return "JACKET";
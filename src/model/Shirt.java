@@ -9,6 +9,23 @@ public class Shirt extends ClothingItem {
         setSleeveType(sleeveType);
     }
 
+    private Shirt() {
+    }
+
+    // Builds an item from a database row without re-running the setter validation
+    public static Shirt fromDatabase(int itemId, String name, String size, double price, String sleeveType,
+                                     int version) {
+        Shirt shirt = new Shirt();
+        shirt.setStoredFields(itemId, name, size, price, version);
+        shirt.sleeveType = sleeveType;
+        return shirt;
+    }
+
+    @Override
+    public Shirt copy() {
+        return fromDatabase(itemId, name, size, price, sleeveType, version);
+    }
+
     @Override
     public String getType() {
         return "SHIRT";
@@ -0,0 +1,203 @@
+package report;
+
+import db.DatabaseConnection;
+import metrics.DaoMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Inventory statistics computed by Postgres (GROUP BY, width_bucket), so only the aggregated
+// rows travel over the wire instead of the whole clothing_items table.
+// With useSummaries the per-group statistics come from the clothing_item_stats materialized view,
+// which is only as fresh as the last refreshSummaries() call.
+// Queries may run on a read replica when DatabaseConnection has some configured.
+public class CatalogReport {
+
+    private static final DaoMetrics METRICS = DaoMetrics.get();
+
+    private static final String STATS_COLUMNS =
+            "count(*), min(price), max(price), avg(price), sum(price)";
+
+    private static final String STATS_BY_TYPE_SQL =
+            "SELECT type, " + STATS_COLUMNS + " FROM clothing_items GROUP BY type ORDER BY type";
+
+    private static final String STATS_BY_SIZE_SQL =
+            "SELECT size, " + STATS_COLUMNS + " FROM clothing_items GROUP BY size ORDER BY size";
+
+    private static final String STATS_BY_SEASON_SQL =
+            "SELECT season, " + STATS_COLUMNS + " FROM clothing_items " +
+                    "WHERE season IS NOT NULL GROUP BY season ORDER BY season";
+
+    private static final String OVERALL_STATS_SQL =
+            "SELECT 'ALL', " + STATS_COLUMNS + " FROM clothing_items HAVING count(*) > 0";
+
+    private static final String SUMMARY_SQL =
+            "SELECT value, item_count, min_price, max_price, avg_price, total_price " +
+                    "FROM clothing_item_stats WHERE dimension = ? ORDER BY value";
+
+    // Prices equal to the upper bound would land in bucket n + 1, so they are folded into the last bucket
+    private static final String HISTOGRAM_SQL =
+            "SELECT LEAST(width_bucket(price, ?, ?, ?), ?) AS bucket, count(*) FROM clothing_items " +
+                    "WHERE price BETWEEN ? AND ? GROUP BY bucket ORDER BY bucket";
+
+    private static final String REFRESH_SQL =
+            "REFRESH MATERIALIZED VIEW CONCURRENTLY clothing_item_stats";
+
+    public static final int MAX_BUCKETS = 1000;
+
+    private final boolean useSummaries;
+
+    public CatalogReport() {
+        this(false);
+    }
+
+    public CatalogReport(boolean useSummaries) {
+        this.useSummaries = useSummaries;
+    }
+
+    public List<PriceStats> statsByType() throws SQLException {
+        return useSummaries ? summary("type") : stats("report.statsByType", STATS_BY_TYPE_SQL);
+    }
+
+    public List<PriceStats> statsBySize() throws SQLException {
+        return useSummaries ? summary("size") : stats("report.statsBySize", STATS_BY_SIZE_SQL);
+    }
+
+    // Only jackets have a season
+    public List<PriceStats> statsBySeason() throws SQLException {
+        return useSummaries ? summary("season") : stats("report.statsBySeason", STATS_BY_SEASON_SQL);
+    }
+
+    // Returns null for an empty catalog
+    public PriceStats overallStats() throws SQLException {
+        List<PriceStats> stats = stats("report.overallStats", OVERALL_STATS_SQL);
+        return stats.isEmpty() ? null : stats.get(0);
+    }
+
+    // Splits [minPrice, maxPrice] into equal-width buckets; empty buckets are included with a count of 0
+    public List<HistogramBucket> priceHistogram(double minPrice, double maxPrice, int buckets) throws SQLException {
+        if (buckets <= 0 || buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("buckets must be between 1 and " + MAX_BUCKETS + ".");
+        }
+        if (!(minPrice < maxPrice)) {
+            throw new IllegalArgumentException("minPrice must be smaller than maxPrice.");
+        }
+
+        long[] counts = new long[buckets];
+        Object[] params = {minPrice, maxPrice, buckets, buckets, minPrice, maxPrice};
+        long start = System.nanoTime();
+
+        try (Connection connection = DatabaseConnection.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(HISTOGRAM_SQL)) {
+
+            bind(statement, params);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    counts[resultSet.getInt(1) - 1] = resultSet.getLong(2);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            METRICS.recordCall("report.priceHistogram", HISTOGRAM_SQL, params, start, 0, true);
+            throw e;
+        }
+        METRICS.recordCall("report.priceHistogram", HISTOGRAM_SQL, params, start, buckets, false);
+
+        List<HistogramBucket> histogram = new ArrayList<>(buckets);
+        double width = (maxPrice - minPrice) / buckets;
+        for (int i = 0; i < buckets; i++) {
+            double upper = i == buckets - 1 ? maxPrice : minPrice + width * (i + 1);
+            histogram.add(new HistogramBucket(minPrice + width * i, upper, counts[i]));
+        }
+        return histogram;
+    }
+
+    // Histogram over the current price range of the catalog
+    public List<HistogramBucket> priceHistogram(int buckets) throws SQLException {
+        PriceStats overall = overallStats();
+        if (overall == null) {
+            return new ArrayList<>();
+        }
+        if (overall.getMinPrice() == overall.getMaxPrice()) {
+            List<HistogramBucket> single = new ArrayList<>();
+            single.add(new HistogramBucket(overall.getMinPrice(), overall.getMaxPrice(), overall.getCount()));
+            return single;
+        }
+        return priceHistogram(overall.getMinPrice(), overall.getMaxPrice(), buckets);
+    }
+
+    // Discount scenarios are evaluated on the result with CatalogValue.getDiscountedPrice
+    public CatalogValue totalValue() throws SQLException {
+        Map<String, Double> totalByType = new LinkedHashMap<>();
+        for (PriceStats stats : statsByType()) {
+            totalByType.put(stats.getGroup(), stats.getTotalPrice());
+        }
+        return new CatalogValue(totalByType);
+    }
+
+    // CONCURRENTLY lets reports keep reading the old contents while the view is rebuilt
+    public void refreshSummaries() throws SQLException {
+        long start = System.nanoTime();
+
+        try (Connection connection = DatabaseConnection.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(REFRESH_SQL);
+            DatabaseConnection.markWrite();
+        } catch (SQLException | RuntimeException e) {
+            METRICS.recordCall("report.refreshSummaries", REFRESH_SQL, new Object[0], start, 0, true);
+            throw e;
+        }
+        METRICS.recordCall("report.refreshSummaries", REFRESH_SQL, new Object[0], start, 0, false);
+    }
+
+    private List<PriceStats> summary(String dimension) throws SQLException {
+        return stats("report.summary." + dimension, SUMMARY_SQL, dimension);
+    }
+
+    private List<PriceStats> stats(String method, String sql, Object... params) throws SQLException {
+        List<PriceStats> stats = new ArrayList<>();
+        long start = System.nanoTime();
+
+        try (Connection connection = DatabaseConnection.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            bind(statement, params);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    stats.add(new PriceStats(
+                            resultSet.getString(1),
+                            resultSet.getLong(2),
+                            resultSet.getDouble(3),
+                            resultSet.getDouble(4),
+                            resultSet.getDouble(5),
+                            resultSet.getDouble(6)));
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            METRICS.recordCall(method, sql, params, start, stats.size(), true);
+            throw e;
+        }
+
+        METRICS.recordCall(method, sql, params, start, stats.size(), false);
+        return stats;
+    }
+
+    private static void bind(PreparedStatement statement, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param instanceof Integer) {
+                statement.setInt(i + 1, (Integer) param);
+            } else if (param instanceof Double) {
+                statement.setDouble(i + 1, (Double) param);
+            } else {
+                statement.setString(i + 1, (String) param);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package report;
+
+import model.Discountable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Total price of the catalog, split by type.
+// A discount is linear in the price, so discounting the totals gives the same result as
+// discounting every item and adding them up, without loading any item.
+public class CatalogValue implements Discountable {
+
+    private final Map<String, Double> totalByType;
+    private final double total;
+
+    public CatalogValue(Map<String, Double> totalByType) {
+        this.totalByType = Collections.unmodifiableMap(new LinkedHashMap<>(totalByType));
+
+        double sum = 0;
+        for (double value : totalByType.values()) {
+            sum += value;
+        }
+        this.total = sum;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public Map<String, Double> getTotalByType() {
+        return totalByType;
+    }
+
+    @Override
+    public double getDiscountedPrice(double percent) {
+        checkPercent(percent);
+        return total * (1 - percent / 100.0);
+    }
+
+    // Scenario with a different discount per type, e.g. {SHIRT=10, JACKET=25}; missing types are not discounted
+    public double getDiscountedPrice(Map<String, Double> percentByType) {
+        double sum = 0;
+        for (Map.Entry<String, Double> entry : totalByType.entrySet()) {
+            Double percent = percentByType.get(entry.getKey());
+            if (percent == null) {
+                sum += entry.getValue();
+            } else {
+                checkPercent(percent);
+                sum += entry.getValue() * (1 - percent / 100.0);
+            }
+        }
+        return sum;
+    }
+
+    private static void checkPercent(double percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("discount percent must be between 0 and 100.");
+        }
+    }
+
+    @Override
+    public String getPriceLabel() {
+        return String.format("%.2f KZT", total);
+    }
+
+    @Override
+    public String toString() {
+        return "Catalog value: " + getPriceLabel() + " " + totalByType;
+    }
+}
@@ -0,0 +1,34 @@
+package report;
+
+import java.util.Locale;
+
+// Number of items with lowerBound <= price < upperBound (the last bucket also includes upperBound)
+public class HistogramBucket {
+
+    private final double lowerBound;
+    private final double upperBound;
+    private final long count;
+
+    public HistogramBucket(double lowerBound, double upperBound, long count) {
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.count = count;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%10.2f - %10.2f: %d", lowerBound, upperBound, count);
+    }
+}
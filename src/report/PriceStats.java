@@ -0,0 +1,54 @@
+package report;
+
+import java.util.Locale;
+
+// Count and price statistics for one group of items (one type, size or season)
+public class PriceStats {
+
+    private final String group;
+    private final long count;
+    private final double minPrice;
+    private final double maxPrice;
+    private final double averagePrice;
+    private final double totalPrice;
+
+    public PriceStats(String group, long count, double minPrice, double maxPrice,
+                      double averagePrice, double totalPrice) {
+        this.group = group;
+        this.count = count;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.averagePrice = averagePrice;
+        this.totalPrice = totalPrice;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMinPrice() {
+        return minPrice;
+    }
+
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public double getAveragePrice() {
+        return averagePrice;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-10s count=%d, min=%.2f, max=%.2f, avg=%.2f, total=%.2f KZT",
+                group, count, minPrice, maxPrice, averagePrice, totalPrice);
+    }
+}
@@ -0,0 +1,12 @@
+-- Substring search: searchByName uses name ILIKE '%x%'
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_clothing_items_name_trgm
+    ON clothing_items USING gin (name gin_trgm_ops);
+
+-- Price searches: ORDER BY price DESC, item_id DESC (read backwards) and keyset pages
+CREATE INDEX IF NOT EXISTS idx_clothing_items_price_id
+    ON clothing_items (price, item_id);
+
+-- getByType: WHERE type = ? ORDER BY item_id
+CREATE INDEX IF NOT EXISTS idx_clothing_items_type_id
+    ON clothing_items (type, item_id);
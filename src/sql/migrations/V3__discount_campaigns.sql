@@ -0,0 +1,20 @@
+-- Discount campaigns applied by campaign.CampaignEngine
+CREATE TABLE IF NOT EXISTS discount_campaigns (
+    campaign_id VARCHAR(50) PRIMARY KEY,
+    percent DOUBLE PRECISION NOT NULL,
+    applied_at TIMESTAMP NOT NULL DEFAULT now(),
+    reverted_at TIMESTAMP
+);
+
+-- Original price of every item a running campaign changed, so the campaign can be reverted.
+-- An item can be in at most one running campaign at a time.
+CREATE TABLE IF NOT EXISTS campaign_price_backup (
+    campaign_id VARCHAR(50) NOT NULL REFERENCES discount_campaigns (campaign_id),
+    item_id INT NOT NULL,
+    original_price DOUBLE PRECISION NOT NULL,
+    discounted_price DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (campaign_id, item_id)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_campaign_price_backup_item
+    ON campaign_price_backup (item_id);
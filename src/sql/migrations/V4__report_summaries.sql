@@ -0,0 +1,16 @@
+-- Pre-aggregated price statistics for report.CatalogReport.
+-- Refreshed on demand with REFRESH MATERIALIZED VIEW CONCURRENTLY, which needs the unique index.
+CREATE MATERIALIZED VIEW IF NOT EXISTS clothing_item_stats AS
+    SELECT 'type' AS dimension, type AS value,
+           count(*) AS item_count, min(price) AS min_price, max(price) AS max_price,
+           avg(price) AS avg_price, sum(price) AS total_price
+    FROM clothing_items GROUP BY type
+    UNION ALL
+    SELECT 'size', size, count(*), min(price), max(price), avg(price), sum(price)
+    FROM clothing_items GROUP BY size
+    UNION ALL
+    SELECT 'season', season, count(*), min(price), max(price), avg(price), sum(price)
+    FROM clothing_items WHERE season IS NOT NULL GROUP BY season;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_clothing_item_stats_key
+    ON clothing_item_stats (dimension, value);
@@ -0,0 +1,33 @@
+-- Change feed for change.ChangeFeedListener: every write to clothing_items is logged with a
+-- monotonic change_id, and a NOTIFY wakes up listeners. The table is the source of truth, so a
+-- listener that was disconnected catches up by reading change_id ranges.
+CREATE TABLE IF NOT EXISTS clothing_item_changes (
+    change_id BIGSERIAL PRIMARY KEY,
+    item_id INT NOT NULL,
+    operation CHAR(1) NOT NULL, -- 'I', 'U' or 'D'
+    changed_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_clothing_item_changes_changed_at
+    ON clothing_item_changes (changed_at);
+
+CREATE OR REPLACE FUNCTION clothing_items_log_change() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO clothing_item_changes (item_id, operation) VALUES (OLD.item_id, 'D');
+    ELSIF TG_OP = 'UPDATE' AND OLD.item_id <> NEW.item_id THEN
+        INSERT INTO clothing_item_changes (item_id, operation) VALUES (OLD.item_id, 'D');
+        INSERT INTO clothing_item_changes (item_id, operation) VALUES (NEW.item_id, 'I');
+    ELSE
+        INSERT INTO clothing_item_changes (item_id, operation) VALUES (NEW.item_id, left(TG_OP, 1));
+    END IF;
+    -- Notifications with the same payload are folded into one per transaction
+    PERFORM pg_notify('clothing_items_changed', '');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS clothing_items_change_log ON clothing_items;
+CREATE TRIGGER clothing_items_change_log
+    AFTER INSERT OR UPDATE OR DELETE ON clothing_items
+    FOR EACH ROW EXECUTE FUNCTION clothing_items_log_change();
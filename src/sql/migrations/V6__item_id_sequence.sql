@@ -0,0 +1,8 @@
+-- IDs for new items (dao.ItemIdAllocator). Each nextval reserves a block of 50 IDs that one JVM
+-- hands out locally; INCREMENT BY must match ItemIdAllocator.BLOCK_SIZE.
+CREATE SEQUENCE IF NOT EXISTS clothing_items_item_id_seq
+    AS INT INCREMENT BY 50 MINVALUE 1 START WITH 1;
+
+-- Move the sequence past IDs that were entered by hand before it existed
+SELECT setval('clothing_items_item_id_seq', (SELECT max(item_id) + 1 FROM clothing_items), false)
+WHERE (SELECT max(item_id) FROM clothing_items) >= (SELECT last_value FROM clothing_items_item_id_seq);
@@ -0,0 +1,2 @@
+-- Row version for optimistic concurrency control; every UPDATE of an item increments it
+ALTER TABLE clothing_items ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,86 @@
+-- List-partitions clothing_items by type, so getByType and typed updates only touch one partition
+-- and each partition is vacuumed and indexed on its own. New types land in clothing_items_other
+-- until they get their own partition. Needs PostgreSQL 13 or later (row triggers on partitioned tables).
+--
+-- A primary key on a partitioned table has to contain the partition key, so it becomes
+-- (item_id, type). clothing_items_check_id() keeps item_id unique across partitions.
+DO $$
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'clothing_items'::regclass) = 'p' THEN
+        RETURN;
+    END IF;
+
+    -- The summary view reads the old table; it is created again below
+    DROP MATERIALIZED VIEW IF EXISTS clothing_item_stats;
+    ALTER TABLE clothing_items RENAME TO clothing_items_unpartitioned;
+    -- Frees the name for the new primary key
+    ALTER INDEX IF EXISTS clothing_items_pkey RENAME TO clothing_items_unpartitioned_pkey;
+
+    CREATE TABLE clothing_items (
+        item_id INT NOT NULL,
+        type VARCHAR(10) NOT NULL,
+        name VARCHAR(100) NOT NULL,
+        size VARCHAR(20) NOT NULL,
+        price DOUBLE PRECISION NOT NULL,
+        sleeve_type VARCHAR(20),
+        season VARCHAR(20),
+        version INT NOT NULL DEFAULT 0,
+        PRIMARY KEY (item_id, type)
+    ) PARTITION BY LIST (type);
+
+    CREATE TABLE clothing_items_shirt PARTITION OF clothing_items FOR VALUES IN ('SHIRT');
+    CREATE TABLE clothing_items_jacket PARTITION OF clothing_items FOR VALUES IN ('JACKET');
+    CREATE TABLE clothing_items_other PARTITION OF clothing_items DEFAULT;
+
+    -- Copied before the triggers exist, so the change log is not flooded with inserts
+    INSERT INTO clothing_items (item_id, type, name, size, price, sleeve_type, season, version)
+    SELECT item_id, type, name, size, price, sleeve_type, season, version FROM clothing_items_unpartitioned;
+
+    DROP TABLE clothing_items_unpartitioned;
+END $$;
+
+-- Indexes created on the parent are created on every partition. (type, item_id) is not needed any
+-- more: inside a partition the type is constant and the primary key already starts with item_id.
+CREATE INDEX IF NOT EXISTS idx_clothing_items_name_trgm
+    ON clothing_items USING gin (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_clothing_items_price_id
+    ON clothing_items (price, item_id);
+DROP INDEX IF EXISTS idx_clothing_items_type_id;
+
+-- The lock serializes inserts of the same ID, so two sessions cannot both pass the check.
+-- Raised as unique_violation so callers handle it like a primary key conflict.
+CREATE OR REPLACE FUNCTION clothing_items_check_id() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('clothing_items'), NEW.item_id);
+    IF EXISTS (SELECT 1 FROM clothing_items WHERE item_id = NEW.item_id AND type <> NEW.type) THEN
+        RAISE EXCEPTION 'duplicate key value violates unique constraint "clothing_items_item_id"'
+            USING ERRCODE = 'unique_violation', DETAIL = format('Key (item_id)=(%s) already exists.', NEW.item_id);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS clothing_items_unique_id ON clothing_items;
+CREATE TRIGGER clothing_items_unique_id
+    BEFORE INSERT ON clothing_items
+    FOR EACH ROW EXECUTE FUNCTION clothing_items_check_id();
+
+DROP TRIGGER IF EXISTS clothing_items_change_log ON clothing_items;
+CREATE TRIGGER clothing_items_change_log
+    AFTER INSERT OR UPDATE OR DELETE ON clothing_items
+    FOR EACH ROW EXECUTE FUNCTION clothing_items_log_change();
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS clothing_item_stats AS
+    SELECT 'type' AS dimension, type AS value,
+           count(*) AS item_count, min(price) AS min_price, max(price) AS max_price,
+           avg(price) AS avg_price, sum(price) AS total_price
+    FROM clothing_items GROUP BY type
+    UNION ALL
+    SELECT 'size', size, count(*), min(price), max(price), avg(price), sum(price)
+    FROM clothing_items GROUP BY size
+    UNION ALL
+    SELECT 'season', season, count(*), min(price), max(price), avg(price), sum(price)
+    FROM clothing_items WHERE season IS NOT NULL GROUP BY season;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_clothing_item_stats_key
+    ON clothing_item_stats (dimension, value);
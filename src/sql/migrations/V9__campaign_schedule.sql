@@ -0,0 +1,10 @@
+-- Campaign filters and time window, so campaigns that were scheduled or still have to be reverted
+-- survive a restart (see CampaignEngine.resume). applied_at stays NULL until the campaign starts.
+ALTER TABLE discount_campaigns ADD COLUMN IF NOT EXISTS type VARCHAR(10);
+ALTER TABLE discount_campaigns ADD COLUMN IF NOT EXISTS min_price DOUBLE PRECISION;
+ALTER TABLE discount_campaigns ADD COLUMN IF NOT EXISTS max_price DOUBLE PRECISION;
+ALTER TABLE discount_campaigns ADD COLUMN IF NOT EXISTS name_contains VARCHAR(100);
+ALTER TABLE discount_campaigns ADD COLUMN IF NOT EXISTS starts_at TIMESTAMPTZ;
+ALTER TABLE discount_campaigns ADD COLUMN IF NOT EXISTS ends_at TIMESTAMPTZ;
+ALTER TABLE discount_campaigns ALTER COLUMN applied_at DROP NOT NULL;
+ALTER TABLE discount_campaigns ALTER COLUMN applied_at DROP DEFAULT;
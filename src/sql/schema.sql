@@ -1,9 +1,103 @@
+-- Full current schema for a fresh database.
+-- Existing databases are upgraded by db.SchemaMigrator from the files in sql/migrations.
 CREATE TABLE clothing_items (
-    item_id INT PRIMARY KEY,
+    item_id INT NOT NULL, -- unique on its own, see clothing_items_check_id()
     type VARCHAR(10) NOT NULL, -- 'SHIRT' or 'JACKET'
     name VARCHAR(100) NOT NULL,
     size VARCHAR(20) NOT NULL,
     price DOUBLE PRECISION NOT NULL,
     sleeve_type VARCHAR(20),
-    season VARCHAR(20)
+    season VARCHAR(20),
+    version INT NOT NULL DEFAULT 0, -- incremented by every UPDATE (optimistic locking)
+    PRIMARY KEY (item_id, type)
+) PARTITION BY LIST (type);
+
+CREATE TABLE clothing_items_shirt PARTITION OF clothing_items FOR VALUES IN ('SHIRT');
+CREATE TABLE clothing_items_jacket PARTITION OF clothing_items FOR VALUES IN ('JACKET');
+CREATE TABLE clothing_items_other PARTITION OF clothing_items DEFAULT;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_clothing_items_name_trgm ON clothing_items USING gin (name gin_trgm_ops);
+CREATE INDEX idx_clothing_items_price_id ON clothing_items (price, item_id);
+
+CREATE OR REPLACE FUNCTION clothing_items_check_id() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('clothing_items'), NEW.item_id);
+    IF EXISTS (SELECT 1 FROM clothing_items WHERE item_id = NEW.item_id AND type <> NEW.type) THEN
+        RAISE EXCEPTION 'duplicate key value violates unique constraint "clothing_items_item_id"'
+            USING ERRCODE = 'unique_violation', DETAIL = format('Key (item_id)=(%s) already exists.', NEW.item_id);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER clothing_items_unique_id
+    BEFORE INSERT ON clothing_items
+    FOR EACH ROW EXECUTE FUNCTION clothing_items_check_id();
+
+CREATE TABLE discount_campaigns (
+    campaign_id VARCHAR(50) PRIMARY KEY,
+    percent DOUBLE PRECISION NOT NULL,
+    type VARCHAR(10),
+    min_price DOUBLE PRECISION,
+    max_price DOUBLE PRECISION,
+    name_contains VARCHAR(100),
+    starts_at TIMESTAMPTZ,
+    ends_at TIMESTAMPTZ,
+    applied_at TIMESTAMP,
+    reverted_at TIMESTAMP
 );
+
+CREATE TABLE campaign_price_backup (
+    campaign_id VARCHAR(50) NOT NULL REFERENCES discount_campaigns (campaign_id),
+    item_id INT NOT NULL,
+    original_price DOUBLE PRECISION NOT NULL,
+    discounted_price DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (campaign_id, item_id)
+);
+CREATE UNIQUE INDEX idx_campaign_price_backup_item ON campaign_price_backup (item_id);
+
+CREATE MATERIALIZED VIEW clothing_item_stats AS
+    SELECT 'type' AS dimension, type AS value,
+           count(*) AS item_count, min(price) AS min_price, max(price) AS max_price,
+           avg(price) AS avg_price, sum(price) AS total_price
+    FROM clothing_items GROUP BY type
+    UNION ALL
+    SELECT 'size', size, count(*), min(price), max(price), avg(price), sum(price)
+    FROM clothing_items GROUP BY size
+    UNION ALL
+    SELECT 'season', season, count(*), min(price), max(price), avg(price), sum(price)
+    FROM clothing_items WHERE season IS NOT NULL GROUP BY season;
+CREATE UNIQUE INDEX idx_clothing_item_stats_key ON clothing_item_stats (dimension, value);
+
+CREATE TABLE clothing_item_changes (
+    change_id BIGSERIAL PRIMARY KEY,
+    item_id INT NOT NULL,
+    operation CHAR(1) NOT NULL, -- 'I', 'U' or 'D'
+    changed_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_clothing_item_changes_changed_at
+    ON clothing_item_changes (changed_at);
+
+CREATE OR REPLACE FUNCTION clothing_items_log_change() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO clothing_item_changes (item_id, operation) VALUES (OLD.item_id, 'D');
+    ELSIF TG_OP = 'UPDATE' AND OLD.item_id <> NEW.item_id THEN
+        INSERT INTO clothing_item_changes (item_id, operation) VALUES (OLD.item_id, 'D');
+        INSERT INTO clothing_item_changes (item_id, operation) VALUES (NEW.item_id, 'I');
+    ELSE
+        INSERT INTO clothing_item_changes (item_id, operation) VALUES (NEW.item_id, left(TG_OP, 1));
+    END IF;
+    -- Notifications with the same payload are folded into one per transaction
+    PERFORM pg_notify('clothing_items_changed', '');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER clothing_items_change_log
+    AFTER INSERT OR UPDATE OR DELETE ON clothing_items
+    FOR EACH ROW EXECUTE FUNCTION clothing_items_log_change();
+
+CREATE SEQUENCE clothing_items_item_id_seq AS INT INCREMENT BY 50 MINVALUE 1 START WITH 1;
@@ -0,0 +1,625 @@
+package store;
+
+import dao.ClothingItemDAO;
+import dao.ClothingItemStore;
+import exception.OptimisticLockException;
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Embedded storage for places without a PostgreSQL server. Items are fixed-width records in a
+// memory-mapped data file (items.dat) with an in-memory item_id -> slot index, so a point lookup
+// is a hash lookup plus one record decode. Writes go to an append-only log (items.log) first;
+// a checkpoint flushes the data file and clears the log, and compaction moves live records
+// into freed slots. Both run periodically and when the log grows past its limit.
+// Only one process may open a directory at a time.
+public class MappedItemStore implements ClothingItemStore, AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(MappedItemStore.class.getName());
+
+    private static final int MAGIC = 0x434c4f54; // "CLOT"
+    private static final int FORMAT_VERSION = 1;
+
+    // Header: magic, format version, record size, slots in use, last checkpointed log sequence
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_FORMAT = 4;
+    private static final int HEADER_RECORD_SIZE = 8;
+    private static final int HEADER_SLOT_COUNT = 12;
+    private static final int HEADER_CHECKPOINT = 16;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // A MappedByteBuffer is limited to 2 GiB
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / RecordCodec.RECORD_SIZE;
+
+    public static final long DEFAULT_LOG_LIMIT_BYTES = 8L * 1024 * 1024;
+    public static final long DEFAULT_MAINTENANCE_MILLIS = 5 * 60 * 1000;
+
+    // SQLSTATE unique_violation, as Postgres reports a duplicate primary key
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final FileChannel dataChannel;
+    private final WriteLog log;
+    private final long logLimitBytes;
+    private final ScheduledExecutorService maintenance;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private MappedByteBuffer data;
+    private int capacity;
+    private int slotCount;
+
+    private final Map<Integer, Integer> slots = new HashMap<>();
+    // Lowest free slot first, so new records fill the front of the file
+    private final PriorityQueue<Integer> freeSlots = new PriorityQueue<>();
+
+    // Scratch record for encoding writes (only used under the write lock)
+    private final ByteBuffer scratch = ByteBuffer.allocate(RecordCodec.RECORD_SIZE);
+
+    private boolean closed;
+
+    public MappedItemStore(Path directory) throws IOException {
+        this(directory, true, DEFAULT_LOG_LIMIT_BYTES, DEFAULT_MAINTENANCE_MILLIS);
+    }
+
+    // syncWrites = false skips the fsync per write: much faster, but the last writes before a
+    // power loss can be lost (a process crash loses nothing). maintenanceMillis = 0 turns off the
+    // periodic checkpoint/compaction; it then only happens when the log reaches logLimitBytes.
+    public MappedItemStore(Path directory, boolean syncWrites, long logLimitBytes, long maintenanceMillis)
+            throws IOException {
+        if (logLimitBytes <= 0 || maintenanceMillis < 0) {
+            throw new IllegalArgumentException("invalid log limit or maintenance interval.");
+        }
+        Files.createDirectories(directory);
+        this.logLimitBytes = logLimitBytes;
+        this.dataChannel = FileChannel.open(directory.resolve("items.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.log = new WriteLog(directory.resolve("items.log"), syncWrites);
+
+        try {
+            // Held until the channel is closed
+            if (dataChannel.tryLock() == null) {
+                throw new IOException("Item store " + directory + " is already open in another process.");
+            }
+            openDataFile();
+            recover();
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            dataChannel.close();
+            throw e;
+        }
+
+        if (maintenanceMillis > 0) {
+            maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "item-store-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+            maintenance.scheduleWithFixedDelay(this::runMaintenance,
+                    maintenanceMillis, maintenanceMillis, TimeUnit.MILLISECONDS);
+        } else {
+            maintenance = null;
+        }
+    }
+
+    // -------------------- Opening and recovery --------------------
+
+    private void openDataFile() throws IOException {
+        long size = dataChannel.size();
+
+        if (size == 0) {
+            map(INITIAL_CAPACITY);
+            data.putInt(HEADER_MAGIC, MAGIC);
+            data.putInt(HEADER_FORMAT, FORMAT_VERSION);
+            data.putInt(HEADER_RECORD_SIZE, RecordCodec.RECORD_SIZE);
+            data.putInt(HEADER_SLOT_COUNT, 0);
+            data.putLong(HEADER_CHECKPOINT, 0);
+            data.force();
+            return;
+        }
+
+        map((int) ((size - HEADER_SIZE) / RecordCodec.RECORD_SIZE));
+        if (data.getInt(HEADER_MAGIC) != MAGIC || data.getInt(HEADER_FORMAT) != FORMAT_VERSION
+                || data.getInt(HEADER_RECORD_SIZE) != RecordCodec.RECORD_SIZE) {
+            throw new IOException("Not an item store data file (or an unsupported format version).");
+        }
+        slotCount = Math.min(data.getInt(HEADER_SLOT_COUNT), capacity);
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            int offset = offset(slot);
+            if (RecordCodec.status(data, offset) != RecordCodec.LIVE) {
+                freeSlots.add(slot);
+                continue;
+            }
+            // A crash during compaction can leave one record in two slots; both copies are equal
+            Integer previous = slots.putIfAbsent(RecordCodec.itemId(data, offset), slot);
+            if (previous != null) {
+                RecordCodec.writeFree(data, offset, RecordCodec.itemId(data, offset));
+                freeSlots.add(slot);
+            }
+        }
+    }
+
+    // Re-applies the writes that were logged after the last checkpoint, then checkpoints
+    private void recover() throws IOException {
+        long checkpoint = data.getLong(HEADER_CHECKPOINT);
+        log.replay(checkpoint, (operation, record) -> {
+            if (operation == WriteLog.PUT) {
+                applyPut(record);
+            } else {
+                applyDelete(RecordCodec.itemId(record, 0));
+            }
+        });
+        checkpoint();
+    }
+
+    private void map(int newCapacity) throws IOException {
+        capacity = newCapacity;
+        data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RecordCodec.RECORD_SIZE);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RecordCodec.RECORD_SIZE;
+    }
+
+    // -------------------- Writes --------------------
+
+    @Override
+    public boolean insertShirt(Shirt shirt) throws SQLException {
+        return insert(shirt);
+    }
+
+    @Override
+    public boolean insertJacket(Jacket jacket) throws SQLException {
+        return insert(jacket);
+    }
+
+    private boolean insert(ClothingItem item) throws SQLException {
+        RecordCodec.validate(item);
+
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            if (slots.containsKey(item.getItemId())) {
+                throw duplicateKey(item.getItemId());
+            }
+            put(item, 0);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // All or nothing, like the DAO's single transaction: keys and space are checked up front, and
+    // nothing is applied until the whole batch is logged and synced. A failed append cuts the
+    // batch off the log again; a crash before its last entry makes recovery drop it (see WriteLog).
+    @Override
+    public int insertAll(Collection<? extends ClothingItem> items) throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        for (ClothingItem item : items) {
+            RecordCodec.validate(item);
+            if (!ids.add(item.getItemId())) {
+                throw duplicateKey(item.getItemId());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            for (ClothingItem item : items) {
+                if (slots.containsKey(item.getItemId())) {
+                    throw duplicateKey(item.getItemId());
+                }
+            }
+            if (items.isEmpty()) {
+                return 0;
+            }
+            // Grows the file now so applying the batch cannot run out of slots halfway
+            reserve(items.size() - freeSlots.size());
+
+            long logSize = log.sizeBytes();
+            long sequence = log.getLastSequence();
+            try {
+                // One fsync for the whole batch instead of one per item
+                int remaining = items.size();
+                for (ClothingItem item : items) {
+                    encode(item, 0);
+                    log.append(--remaining == 0 ? WriteLog.PUT : WriteLog.BATCH_PUT, scratch, false);
+                }
+                log.sync();
+            } catch (IOException e) {
+                try {
+                    log.rollback(logSize, sequence);
+                } catch (IOException rollbackError) {
+                    // The next write would complete the half-logged batch; reopening drops it
+                    closed = true;
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            }
+
+            for (ClothingItem item : items) {
+                encode(item, 0);
+                applyPut(scratch);
+            }
+            afterWrite();
+            return items.size();
+        } catch (IOException e) {
+            throw storageError(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean updateShirt(int itemId, String name, String size, double price, String sleeveType)
+            throws SQLException {
+        return update(new Shirt(itemId, name, size, price, sleeveType), false);
+    }
+
+    @Override
+    public boolean updateJacket(int itemId, String name, String size, double price, String season)
+            throws SQLException {
+        return update(new Jacket(itemId, name, size, price, season), false);
+    }
+
+    @Override
+    public boolean updateShirt(Shirt shirt) throws SQLException {
+        return update(shirt, true);
+    }
+
+    @Override
+    public boolean updateJacket(Jacket jacket) throws SQLException {
+        return update(jacket, true);
+    }
+
+    // Same rules as the SQL updates: only an item of the same type is changed, and the version is bumped
+    private boolean update(ClothingItem item, boolean versioned) throws SQLException {
+        RecordCodec.validate(item);
+
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            Integer slot = slots.get(item.getItemId());
+            if (slot == null || !RecordCodec.type(data, offset(slot)).equals(item.getType())) {
+                return false;
+            }
+
+            int current = RecordCodec.read(data, offset(slot)).getVersion();
+            if (versioned && current != item.getVersion()) {
+                throw new OptimisticLockException(item.getItemId(), item.getVersion(), current);
+            }
+            put(item, current + 1);
+            if (versioned) {
+                item.setVersion(current + 1);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteById(int itemId) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            if (!slots.containsKey(itemId)) {
+                return false;
+            }
+            scratch.clear();
+            RecordCodec.writeFree(scratch, 0, itemId);
+            log.append(WriteLog.DELETE, scratch);
+            applyDelete(itemId);
+            afterWrite();
+            return true;
+        } catch (IOException e) {
+            throw storageError(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Logs the record with the given version, then writes it into the data file
+    private void put(ClothingItem item, int version) throws SQLException {
+        encode(item, version);
+        try {
+            log.append(WriteLog.PUT, scratch);
+            applyPut(scratch);
+            afterWrite();
+        } catch (IOException e) {
+            throw storageError(e);
+        }
+    }
+
+    // Fills scratch with the item as stored with the given version
+    private void encode(ClothingItem item, int version) {
+        int originalVersion = item.getVersion();
+        try {
+            item.setVersion(version);
+            scratch.clear();
+            RecordCodec.write(scratch, 0, item);
+        } finally {
+            item.setVersion(originalVersion);
+        }
+    }
+
+    private void applyPut(ByteBuffer record) throws IOException {
+        int itemId = RecordCodec.itemId(record, 0);
+        Integer slot = slots.get(itemId);
+        if (slot == null) {
+            slot = allocateSlot();
+            slots.put(itemId, slot);
+        }
+        data.put(offset(slot), record, 0, RecordCodec.RECORD_SIZE);
+    }
+
+    private void applyDelete(int itemId) {
+        Integer slot = slots.remove(itemId);
+        if (slot != null) {
+            RecordCodec.writeFree(data, offset(slot), itemId);
+            freeSlots.add(slot);
+        }
+    }
+
+    private int allocateSlot() throws IOException {
+        Integer free = freeSlots.poll();
+        if (free != null) {
+            return free;
+        }
+        reserve(1);
+        data.putInt(HEADER_SLOT_COUNT, slotCount + 1);
+        return slotCount++;
+    }
+
+    // Makes room for newSlots more slots after slotCount, doubling the file as needed
+    private void reserve(int newSlots) throws IOException {
+        if (newSlots <= 0 || slotCount + (long) newSlots <= capacity) {
+            return;
+        }
+        if (slotCount + (long) newSlots > MAX_CAPACITY) {
+            throw new IOException("Item store is full (" + MAX_CAPACITY + " records).");
+        }
+        data.force();
+        map((int) Math.min(MAX_CAPACITY, Math.max((long) capacity * 2, slotCount + (long) newSlots)));
+    }
+
+    private void afterWrite() throws IOException {
+        if (log.sizeBytes() >= logLimitBytes) {
+            checkpoint();
+        }
+    }
+
+    // -------------------- Checkpoint and compaction --------------------
+
+    // Makes the data file durable up to the last logged write, then empties the log
+    private void checkpoint() throws IOException {
+        data.putInt(HEADER_SLOT_COUNT, slotCount);
+        data.force();
+        data.putLong(HEADER_CHECKPOINT, log.getLastSequence());
+        data.force();
+        log.clear();
+    }
+
+    // Moves records from the end of the file into free slots so the used part stays dense.
+    // Runs right after a checkpoint (log empty). All copies are forced to disk before any source
+    // slot is freed, so a crash in between only leaves duplicates that openDataFile() drops
+    // (it keeps the lower slot, which is the copy).
+    public void compact() throws SQLException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            checkpoint();
+
+            List<int[]> moved = new ArrayList<>();
+            int last = slotCount - 1;
+            while (!freeSlots.isEmpty()) {
+                while (last >= 0 && RecordCodec.status(data, offset(last)) != RecordCodec.LIVE) {
+                    last--;
+                }
+                int target = freeSlots.peek();
+                if (target >= last) {
+                    break;
+                }
+                freeSlots.poll();
+
+                int itemId = RecordCodec.itemId(data, offset(last));
+                data.put(offset(target), data, offset(last), RecordCodec.RECORD_SIZE);
+                slots.put(itemId, target);
+                moved.add(new int[]{last, itemId});
+                last--;
+            }
+            if (!moved.isEmpty()) {
+                data.force();
+            }
+            for (int[] source : moved) {
+                RecordCodec.writeFree(data, offset(source[0]), source[1]);
+            }
+
+            slotCount = last + 1;
+            freeSlots.removeIf(slot -> slot >= slotCount);
+            data.putInt(HEADER_SLOT_COUNT, slotCount);
+            data.force();
+        } catch (IOException e) {
+            throw storageError(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void runMaintenance() {
+        try {
+            compact();
+        } catch (SQLException e) {
+            LOG.log(Level.WARNING, "Item store maintenance failed", e);
+        }
+    }
+
+    // -------------------- Reads --------------------
+
+    @Override
+    public ClothingItem getById(int itemId) throws SQLException {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            Integer slot = slots.get(itemId);
+            return slot == null ? null : RecordCodec.read(data, offset(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, ClothingItem> getByIds(int[] ids) throws SQLException {
+        Map<Integer, ClothingItem> found = new HashMap<>(ids.length * 2);
+
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            for (int itemId : ids) {
+                Integer slot = slots.get(itemId);
+                if (slot != null) {
+                    found.put(itemId, RecordCodec.read(data, offset(slot)));
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ClothingItem> getAll() throws SQLException {
+        return scan(offset -> true, BY_ID);
+    }
+
+    @Override
+    public List<ClothingItem> getByType(String type) throws SQLException {
+        return scan(offset -> RecordCodec.type(data, offset).equals(type), BY_ID);
+    }
+
+    @Override
+    public List<ClothingItem> searchByName(String namePart) throws SQLException {
+        Predicate<String> matches = ClothingItemDAO.nameFilter(namePart);
+        return scan(offset -> matches.test(RecordCodec.name(data, offset)), BY_ID);
+    }
+
+    @Override
+    public List<ClothingItem> searchByPriceRange(double minPrice, double maxPrice) throws SQLException {
+        return scan(offset -> {
+            double price = RecordCodec.price(data, offset);
+            return price >= minPrice && price <= maxPrice;
+        }, BY_PRICE_DESC);
+    }
+
+    @Override
+    public List<ClothingItem> searchByMinPrice(double minPrice) throws SQLException {
+        return scan(offset -> RecordCodec.price(data, offset) >= minPrice, BY_PRICE_DESC);
+    }
+
+    private static final Comparator<ClothingItem> BY_ID = Comparator.comparingInt(ClothingItem::getItemId);
+
+    private static final Comparator<ClothingItem> BY_PRICE_DESC =
+            Comparator.comparingDouble(ClothingItem::getPrice)
+                    .thenComparingInt(ClothingItem::getItemId)
+                    .reversed();
+
+    // Filters on the raw record and only decodes the matches
+    private List<ClothingItem> scan(RecordFilter filter, Comparator<ClothingItem> order) throws SQLException {
+        List<ClothingItem> result = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            for (int slot = 0; slot < slotCount; slot++) {
+                int offset = offset(slot);
+                if (RecordCodec.status(data, offset) == RecordCodec.LIVE && filter.test(offset)) {
+                    result.add(RecordCodec.read(data, offset));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        result.sort(order);
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // -------------------- Helpers --------------------
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Item store is closed.");
+        }
+    }
+
+    private static SQLException duplicateKey(int itemId) {
+        return new SQLException("duplicate key value: item_id " + itemId + " already exists", UNIQUE_VIOLATION);
+    }
+
+    private static SQLException storageError(IOException e) {
+        return new SQLException("Item store I/O error: " + e.getMessage(), e);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            checkpoint();
+        } finally {
+            try {
+                log.close();
+                dataChannel.close();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordFilter {
+        boolean test(int offset);
+    }
+}
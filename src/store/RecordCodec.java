@@ -0,0 +1,151 @@
+package store;
+
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+
+// Fixed-width binary layout of one item, used both in the data file and in the write log.
+// Text columns have the same limits as clothing_items (VARCHAR(100) name, VARCHAR(20) others)
+// and are stored as a char count followed by the chars.
+final class RecordCodec {
+
+    static final int RECORD_SIZE = 320;
+
+    static final byte FREE = 0;
+    static final byte LIVE = 1;
+
+    private static final byte SHIRT = 'S';
+    private static final byte JACKET = 'J';
+
+    private static final int NAME_CHARS = 100;
+    private static final int SHORT_TEXT_CHARS = 20;
+
+    private static final int STATUS = 0;
+    private static final int TYPE = 1;
+    private static final int ITEM_ID = 2;
+    private static final int VERSION = 6;
+    private static final int PRICE = 10;
+    private static final int NAME = 18;
+    private static final int SIZE = NAME + 2 + NAME_CHARS * 2;
+    private static final int EXTRA = SIZE + 2 + SHORT_TEXT_CHARS * 2;
+
+    // SQLSTATE string_data_right_truncation, the error Postgres gives for a too long VARCHAR
+    private static final String TOO_LONG = "22001";
+
+    // SQLSTATE feature_not_supported: the type byte only has codes for shirts and jackets
+    private static final String UNSUPPORTED_TYPE = "0A000";
+
+    private RecordCodec() {
+    }
+
+    static void validate(ClothingItem item) throws SQLException {
+        if (!(item instanceof Shirt) && !(item instanceof Jacket)) {
+            throw new SQLException("item store only supports SHIRT and JACKET items, not " + item.getType(),
+                    UNSUPPORTED_TYPE);
+        }
+        checkLength("name", item.getName(), NAME_CHARS);
+        checkLength("size", item.getSize(), SHORT_TEXT_CHARS);
+        checkLength(item instanceof Shirt ? "sleeve_type" : "season", extraOf(item), SHORT_TEXT_CHARS);
+    }
+
+    private static void checkLength(String column, String value, int maxChars) throws SQLException {
+        if (value != null && value.length() > maxChars) {
+            throw new SQLException("value too long for " + column + " (max " + maxChars + " characters)", TOO_LONG);
+        }
+    }
+
+    static void write(ByteBuffer buffer, int offset, ClothingItem item) {
+        buffer.put(offset + STATUS, LIVE);
+        buffer.put(offset + TYPE, item instanceof Shirt ? SHIRT : JACKET);
+        buffer.putInt(offset + ITEM_ID, item.getItemId());
+        buffer.putInt(offset + VERSION, item.getVersion());
+        buffer.putDouble(offset + PRICE, item.getPrice());
+        writeText(buffer, offset + NAME, item.getName());
+        writeText(buffer, offset + SIZE, item.getSize());
+        writeText(buffer, offset + EXTRA, extraOf(item));
+    }
+
+    // A record that only says "itemId is gone"; used for deletes in the log and for freed slots
+    static void writeFree(ByteBuffer buffer, int offset, int itemId) {
+        buffer.put(offset + STATUS, FREE);
+        buffer.putInt(offset + ITEM_ID, itemId);
+    }
+
+    static ClothingItem read(ByteBuffer buffer, int offset) {
+        int itemId = buffer.getInt(offset + ITEM_ID);
+        int version = buffer.getInt(offset + VERSION);
+        double price = buffer.getDouble(offset + PRICE);
+        String name = readText(buffer, offset + NAME);
+        String size = readText(buffer, offset + SIZE);
+        String extra = readText(buffer, offset + EXTRA);
+
+        byte type = buffer.get(offset + TYPE);
+        if (type == SHIRT) {
+            return Shirt.fromDatabase(itemId, name, size, price, extra, version);
+        }
+        if (type == JACKET) {
+            return Jacket.fromDatabase(itemId, name, size, price, extra, version);
+        }
+        throw new IllegalStateException("Corrupt item record: unknown type byte " + type);
+    }
+
+    static byte status(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + STATUS);
+    }
+
+    static int itemId(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + ITEM_ID);
+    }
+
+    static double price(ByteBuffer buffer, int offset) {
+        return buffer.getDouble(offset + PRICE);
+    }
+
+    static String type(ByteBuffer buffer, int offset) {
+        byte type = buffer.get(offset + TYPE);
+        if (type == SHIRT) {
+            return "SHIRT";
+        }
+        if (type == JACKET) {
+            return "JACKET";
+        }
+        throw new IllegalStateException("Corrupt item record: unknown type byte " + type);
+    }
+
+    static String name(ByteBuffer buffer, int offset) {
+        return readText(buffer, offset + NAME);
+    }
+
+    private static String extraOf(ClothingItem item) {
+        if (item instanceof Shirt) {
+            return ((Shirt) item).getSleeveType();
+        }
+        return ((Jacket) item).getSeason();
+    }
+
+    private static void writeText(ByteBuffer buffer, int offset, String value) {
+        if (value == null) {
+            buffer.putShort(offset, (short) -1);
+            return;
+        }
+        buffer.putShort(offset, (short) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.putChar(offset + 2 + i * 2, value.charAt(i));
+        }
+    }
+
+    private static String readText(ByteBuffer buffer, int offset) {
+        int length = buffer.getShort(offset);
+        if (length < 0) {
+            return null;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = buffer.getChar(offset + 2 + i * 2);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,159 @@
+package store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Append-only log of writes to the data file. Every change is appended (and by default forced to
+// disk) before it is applied to the memory-mapped records, so after a crash the data file is
+// brought up to date by replaying the log from the last checkpoint.
+// Entries have a fixed size: sequence number, operation, one record and a CRC32 of the rest.
+// A bulk write logs BATCH_PUT for every record but the last, which is a plain PUT; replay only
+// applies the batch once it reaches that PUT, so a batch cut off by a crash is dropped whole.
+final class WriteLog implements AutoCloseable {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte BATCH_PUT = 3;
+
+    private static final int ENTRY_SIZE = 8 + 1 + RecordCodec.RECORD_SIZE + 4;
+
+    private final FileChannel channel;
+    private final boolean syncWrites;
+    private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private long lastSequence;
+
+    WriteLog(Path file, boolean syncWrites) throws IOException {
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.syncWrites = syncWrites;
+    }
+
+    // record holds RECORD_SIZE bytes starting at its position
+    void append(byte operation, ByteBuffer record) throws IOException {
+        append(operation, record, syncWrites);
+    }
+
+    // force = false lets a bulk write append many entries and call sync() once at the end
+    void append(byte operation, ByteBuffer record, boolean force) throws IOException {
+        long sequence = lastSequence + 1;
+
+        entry.clear();
+        entry.putLong(sequence);
+        entry.put(operation);
+        entry.put(record.duplicate().limit(record.position() + RecordCodec.RECORD_SIZE));
+        crc.reset();
+        crc.update(entry.array(), 0, entry.position());
+        entry.putInt((int) crc.getValue());
+        entry.flip();
+
+        long position = channel.size();
+        while (entry.hasRemaining()) {
+            position += channel.write(entry, position);
+        }
+        if (force) {
+            channel.force(false);
+        }
+        lastSequence = sequence;
+    }
+
+    // Cuts off entries appended after getLastSequence() returned sequence and sizeBytes() returned size
+    void rollback(long size, long sequence) throws IOException {
+        channel.truncate(size);
+        channel.force(false);
+        lastSequence = sequence;
+    }
+
+    void sync() throws IOException {
+        if (syncWrites) {
+            channel.force(false);
+        }
+    }
+
+    // Calls the handler for every entry after afterSequence, in order (BATCH_PUT entries as PUT).
+    // A torn or corrupt entry at the end (a crash in the middle of append) ends the replay and is
+    // cut off, together with an unfinished batch before it.
+    void replay(long afterSequence, Handler handler) throws IOException {
+        lastSequence = afterSequence;
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer record = ByteBuffer.allocate(RecordCodec.RECORD_SIZE);
+
+        List<ByteBuffer> batch = new ArrayList<>();
+        long batchStart = 0;
+
+        while (position + ENTRY_SIZE <= size) {
+            entry.clear();
+            while (entry.hasRemaining()) {
+                if (channel.read(entry, position + entry.position()) < 0) {
+                    break;
+                }
+            }
+            crc.reset();
+            crc.update(entry.array(), 0, ENTRY_SIZE - 4);
+            if (entry.getInt(ENTRY_SIZE - 4) != (int) crc.getValue()) {
+                break;
+            }
+
+            long sequence = entry.getLong(0);
+            byte operation = entry.get(8);
+            if (operation == BATCH_PUT) {
+                if (batch.isEmpty()) {
+                    batchStart = position;
+                }
+                ByteBuffer copy = ByteBuffer.allocate(RecordCodec.RECORD_SIZE);
+                copy.put(0, entry.array(), 9, RecordCodec.RECORD_SIZE);
+                batch.add(copy);
+            } else {
+                if (sequence > afterSequence) {
+                    for (ByteBuffer batched : batch) {
+                        handler.apply(PUT, batched);
+                    }
+                    record.clear();
+                    record.put(0, entry.array(), 9, RecordCodec.RECORD_SIZE);
+                    handler.apply(operation, record);
+                    lastSequence = sequence;
+                }
+                batch.clear();
+            }
+            position += ENTRY_SIZE;
+        }
+
+        if (!batch.isEmpty()) {
+            position = batchStart;
+        }
+        if (position < size) {
+            channel.truncate(position);
+        }
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    long sizeBytes() throws IOException {
+        return channel.size();
+    }
+
+    // Called after a checkpoint: everything in the log is already in the data file
+    void clear() throws IOException {
+        channel.truncate(0);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    interface Handler {
+        void apply(byte operation, ByteBuffer record) throws IOException;
+    }
+}
@@ -0,0 +1,138 @@
+package sync;
+
+import dao.CopyRowWriter;
+import db.DatabaseConnection;
+import model.ClothingItem;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Makes clothing_items match a supplier feed in one transaction:
+// the feed is streamed with COPY into a temp table, then upserted and (optionally) missing rows are deleted.
+// Memory use stays the same whatever the feed size, because rows go straight from the reader to COPY.
+public class CatalogSync {
+
+    private static final String COLUMNS = "item_id, type, name, size, price, sleeve_type, season";
+
+    private static final String CREATE_STAGE_SQL =
+            "CREATE TEMP TABLE clothing_items_feed (" +
+                    "item_id INT PRIMARY KEY, " +
+                    "type VARCHAR(10) NOT NULL, " +
+                    "name VARCHAR(100) NOT NULL, " +
+                    "size VARCHAR(20) NOT NULL, " +
+                    "price DOUBLE PRECISION NOT NULL, " +
+                    "sleeve_type VARCHAR(20), " +
+                    "season VARCHAR(20)" +
+                    ") ON COMMIT DROP";
+
+    private static final String COPY_STAGE_SQL =
+            "COPY clothing_items_feed (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+    // clothing_items is partitioned by type, so the upsert can only match on (item_id, type).
+    // An item whose type changed in the feed is deleted first and inserted again; the report counts
+    // it as updated, since the item existed before.
+    private static final String DELETE_RETYPED_SQL =
+            "DELETE FROM clothing_items c USING clothing_items_feed f " +
+                    "WHERE f.item_id = c.item_id AND f.type <> c.type";
+
+    // Rows whose values did not change are skipped by the WHERE, so they are neither written nor counted.
+    // xmax = 0 is true only for freshly inserted rows.
+    private static final String UPSERT_SQL =
+            "WITH changed AS (" +
+                    "INSERT INTO clothing_items (" + COLUMNS + ") " +
+                    "SELECT " + COLUMNS + " FROM clothing_items_feed " +
+                    "ON CONFLICT (item_id, type) DO UPDATE SET " +
+                    "name = EXCLUDED.name, size = EXCLUDED.size, price = EXCLUDED.price, " +
+                    "sleeve_type = EXCLUDED.sleeve_type, season = EXCLUDED.season, " +
+                    "version = clothing_items.version + 1 " +
+                    "WHERE (clothing_items.name, clothing_items.size, clothing_items.price, " +
+                    "clothing_items.sleeve_type, clothing_items.season) IS DISTINCT FROM " +
+                    "(EXCLUDED.name, EXCLUDED.size, EXCLUDED.price, " +
+                    "EXCLUDED.sleeve_type, EXCLUDED.season) " +
+                    "RETURNING (xmax = 0) AS inserted) " +
+                    "SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM changed";
+
+    private static final String DELETE_MISSING_SQL =
+            "DELETE FROM clothing_items c " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM clothing_items_feed f WHERE f.item_id = c.item_id)";
+
+    private final Runnable onCatalogChanged;
+
+    public CatalogSync() {
+        this(() -> { });
+    }
+
+    // onCatalogChanged runs after a successful sync, e.g. to clear a CachingClothingItemDAO
+    public CatalogSync(Runnable onCatalogChanged) {
+        this.onCatalogChanged = onCatalogChanged;
+    }
+
+    // deleteMissing = true removes items that are not in the feed (full snapshot feeds).
+    // An empty feed never deletes anything, so a truncated file cannot wipe the catalog.
+    public SyncReport sync(FeedReader feed, boolean deleteMissing) throws SQLException, IOException {
+        SyncReport report;
+
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_STAGE_SQL);
+                }
+
+                long received = stage(connection, feed);
+
+                long inserted;
+                long updated;
+                long deleted = 0;
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ANALYZE clothing_items_feed");
+                    long retyped = statement.executeUpdate(DELETE_RETYPED_SQL);
+
+                    try (ResultSet resultSet = statement.executeQuery(UPSERT_SQL)) {
+                        resultSet.next();
+                        inserted = resultSet.getLong(1) - retyped;
+                        updated = resultSet.getLong(2) + retyped;
+                    }
+
+                    if (deleteMissing && received > 0) {
+                        deleted = statement.executeUpdate(DELETE_MISSING_SQL);
+                    }
+                }
+
+                connection.commit();
+                DatabaseConnection.markWrite();
+                report = new SyncReport(received, inserted, updated, received - inserted - updated, deleted);
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        onCatalogChanged.run();
+        return report;
+    }
+
+    private long stage(Connection connection, FeedReader feed) throws SQLException, IOException {
+        CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGE_SQL);
+
+        try {
+            CopyRowWriter writer = new CopyRowWriter(copy);
+            ClothingItem item;
+            while ((item = feed.next()) != null) {
+                writer.write(item);
+            }
+            return writer.finish();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+}
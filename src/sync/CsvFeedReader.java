@@ -0,0 +1,125 @@
+package sync;
+
+import exception.FeedFormatException;
+import model.ClothingItem;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// CSV feed with a header row naming the columns:
+// item_id,type,name,size,price,sleeve_type,season
+// Fields may be quoted ("..."), with "" for a quote inside a quoted field.
+public class CsvFeedReader implements FeedReader {
+
+    private final Reader reader;
+    private final List<String> header;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+
+    private long line = 1;
+    private int pushedBack = -2;
+
+    public CsvFeedReader(Reader reader) throws IOException {
+        this.reader = reader;
+        if (!readRecord()) {
+            throw new FeedFormatException("feed is empty (header row expected)", 1);
+        }
+        this.header = new ArrayList<>();
+        for (String name : fields) {
+            header.add(name.trim().toLowerCase());
+        }
+    }
+
+    @Override
+    public ClothingItem next() throws IOException {
+        long recordLine;
+        do {
+            recordLine = line;
+            if (!readRecord()) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isEmpty()); // blank line
+
+        if (fields.size() != header.size()) {
+            throw new FeedFormatException("expected " + header.size() + " fields but found " + fields.size(),
+                    recordLine);
+        }
+
+        Map<String, String> record = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String value = fields.get(i);
+            record.put(header.get(i), value.isEmpty() ? null : value);
+        }
+        return FeedRecords.toItem(record, recordLine);
+    }
+
+    // Reads one record into fields; returns false at end of input
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new FeedFormatException("unterminated quoted field", line);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(next);
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                if (c == '\n') {
+                    line++;
+                }
+                return true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
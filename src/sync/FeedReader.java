@@ -0,0 +1,13 @@
+package sync;
+
+import model.ClothingItem;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Reads a supplier feed one item at a time, so feeds of any size can be processed in constant memory
+public interface FeedReader extends Closeable {
+
+    // Returns null when the feed is exhausted
+    ClothingItem next() throws IOException;
+}
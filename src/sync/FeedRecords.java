@@ -0,0 +1,45 @@
+package sync;
+
+import exception.FeedFormatException;
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+
+import java.util.Map;
+
+// Turns the named fields of one feed record into a Shirt or Jacket
+final class FeedRecords {
+
+    private FeedRecords() {
+    }
+
+    static ClothingItem toItem(Map<String, String> fields, long line) throws FeedFormatException {
+        try {
+            int id = Integer.parseInt(required(fields, "item_id", line).trim());
+            String type = required(fields, "type", line).trim().toUpperCase();
+            String name = required(fields, "name", line);
+            String size = required(fields, "size", line);
+            double price = Double.parseDouble(required(fields, "price", line).trim());
+
+            if (type.equals("SHIRT")) {
+                return new Shirt(id, name, size, price, required(fields, "sleeve_type", line));
+            }
+            if (type.equals("JACKET")) {
+                return new Jacket(id, name, size, price, required(fields, "season", line));
+            }
+            throw new FeedFormatException("unknown type '" + type + "'", line);
+        } catch (NumberFormatException e) {
+            throw new FeedFormatException("invalid number: " + e.getMessage(), line, e);
+        } catch (IllegalArgumentException e) {
+            throw new FeedFormatException(e.getMessage(), line, e);
+        }
+    }
+
+    private static String required(Map<String, String> fields, String name, long line) throws FeedFormatException {
+        String value = fields.get(name);
+        if (value == null) {
+            throw new FeedFormatException("missing field '" + name + "'", line);
+        }
+        return value;
+    }
+}
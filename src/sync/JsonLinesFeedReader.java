@@ -0,0 +1,174 @@
+package sync;
+
+import exception.FeedFormatException;
+import model.ClothingItem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+// JSON Lines feed: one flat object per line, for example
+// {"item_id": 7, "type": "SHIRT", "name": "Oxford", "size": "M", "price": 9990, "sleeve_type": "Long"}
+public class JsonLinesFeedReader implements FeedReader {
+
+    private final BufferedReader reader;
+    private long line;
+
+    public JsonLinesFeedReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public ClothingItem next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.trim().isEmpty());
+
+        return FeedRecords.toItem(new ObjectParser(text, line).parse(), line);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Parses one flat JSON object; nested objects and arrays are not part of the feed format
+    private static final class ObjectParser {
+        private final String text;
+        private final long line;
+        private int position;
+
+        private ObjectParser(String text, long line) {
+            this.text = text;
+            this.line = line;
+        }
+
+        private Map<String, String> parse() throws FeedFormatException {
+            Map<String, String> fields = new HashMap<>();
+            expect('{');
+
+            skipSpaces();
+            if (peek() == '}') {
+                position++;
+                return fields;
+            }
+
+            while (true) {
+                skipSpaces();
+                String name = readString();
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+                fields.put(name.toLowerCase(), readValue());
+                skipSpaces();
+
+                char c = next();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw error("expected ',' or '}'");
+                }
+            }
+
+            skipSpaces();
+            if (position != text.length()) {
+                throw error("unexpected text after object");
+            }
+            return fields;
+        }
+
+        // Numbers and literals are returned as their source text; null becomes a Java null
+        private String readValue() throws FeedFormatException {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            int start = position;
+            while (position < text.length() && ",} \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty() || literal.startsWith("{") || literal.startsWith("[")) {
+                throw error("unsupported value");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String readString() throws FeedFormatException {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return out.toString();
+                }
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+
+                char escaped = next();
+                switch (escaped) {
+                    case '"': case '\\': case '/': out.append(escaped); break;
+                    case 'b': out.append('\b'); break;
+                    case 'f': out.append('\f'); break;
+                    case 'n': out.append('\n'); break;
+                    case 'r': out.append('\r'); break;
+                    case 't': out.append('\t'); break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("bad unicode escape");
+                        }
+                        try {
+                            out.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("bad unicode escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        throw error("bad escape \\" + escaped);
+                }
+            }
+        }
+
+        private void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private char peek() throws FeedFormatException {
+            if (position >= text.length()) {
+                throw error("unexpected end of line");
+            }
+            return text.charAt(position);
+        }
+
+        private char next() throws FeedFormatException {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        private void expect(char expected) throws FeedFormatException {
+            skipSpaces();
+            if (next() != expected) {
+                throw error("expected '" + expected + "'");
+            }
+        }
+
+        private FeedFormatException error(String message) {
+            return new FeedFormatException(message + " at column " + (position + 1), line);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package sync;
+
+// Outcome of one CatalogSync run
+public class SyncReport {
+
+    private final long received;
+    private final long inserted;
+    private final long updated;
+    private final long unchanged;
+    private final long deleted;
+
+    public SyncReport(long received, long inserted, long updated, long unchanged, long deleted) {
+        this.received = received;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.deleted = deleted;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "Sync: received=" + received +
+                ", inserted=" + inserted +
+                ", updated=" + updated +
+                ", unchanged=" + unchanged +
+                ", deleted=" + deleted;
+    }
+}
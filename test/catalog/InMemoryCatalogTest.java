@@ -0,0 +1,219 @@
+package catalog;
+
+import change.ItemChange;
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Loaded from a list, so no database is needed; results must have the DAO's order
+class InMemoryCatalogTest {
+
+    private InMemoryCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new InMemoryCatalog(null);
+        catalog.load(List.of(
+                new Shirt(5, "Oxford", "M", 12000, "Long"),
+                new Jacket(2, "Parka", "L", 45000, "Winter"),
+                new Shirt(9, "Polo_Classic", "S", 12000, "Short"),
+                new Jacket(7, "Windbreaker", "M", 20000, "Spring"),
+                new Shirt(1, "100% Linen", "L", 9000, "Short")));
+    }
+
+    private static List<Integer> ids(List<ClothingItem> items) {
+        List<Integer> ids = new ArrayList<>();
+        for (ClothingItem item : items) {
+            ids.add(item.getItemId());
+        }
+        return ids;
+    }
+
+    @Test
+    void getAllAndGetByTypeAreOrderedById() throws SQLException {
+        assertEquals(List.of(1, 2, 5, 7, 9), ids(catalog.getAll()));
+        assertEquals(List.of(1, 5, 9), ids(catalog.getByType("SHIRT")));
+        assertEquals(List.of(2, 7), ids(catalog.getByType("JACKET")));
+        assertTrue(catalog.getByType("HAT").isEmpty());
+        assertEquals(5, catalog.size());
+    }
+
+    @Test
+    void priceRangeIncludesBothBoundsAndIsOrderedByPriceDescending() throws SQLException {
+        // Equal prices come in item_id DESC order, like ORDER BY price DESC, item_id DESC
+        assertEquals(List.of(7, 9, 5), ids(catalog.searchByPriceRange(12000, 20000)));
+        assertEquals(List.of(9, 5), ids(catalog.searchByPriceRange(12000, 12000)));
+        assertEquals(List.of(2, 7, 9, 5, 1), ids(catalog.searchByPriceRange(0, 45000)));
+        assertTrue(catalog.searchByPriceRange(12001, 19999).isEmpty());
+        assertTrue(catalog.searchByPriceRange(50000, 60000).isEmpty());
+    }
+
+    @Test
+    void minPriceIsInclusive() throws SQLException {
+        assertEquals(List.of(2, 7), ids(catalog.searchByMinPrice(20000)));
+        assertEquals(List.of(2, 7, 9, 5, 1), ids(catalog.searchByMinPrice(0)));
+        assertTrue(catalog.searchByMinPrice(45000.01).isEmpty());
+    }
+
+    @Test
+    void emptyCatalogReturnsEmptyResults() throws SQLException {
+        catalog.load(List.of());
+        assertTrue(catalog.getAll().isEmpty());
+        assertTrue(catalog.searchByPriceRange(0, 100000).isEmpty());
+        assertTrue(catalog.searchByMinPrice(0).isEmpty());
+        assertNull(catalog.getById(1));
+    }
+
+    @Test
+    void nameSearchMatchesLikeTheDaoIlike() throws SQLException {
+        assertEquals(List.of(5), ids(catalog.searchByName("OXF")));
+        // _ and % are wildcards, as in the DAO's pattern; \ escapes them
+        assertEquals(List.of(9), ids(catalog.searchByName("polo_c")));
+        assertEquals(List.of(2), ids(catalog.searchByName("a_k")));
+        assertEquals(List.of(9), ids(catalog.searchByName("o%c")));
+        assertEquals(List.of(9), ids(catalog.searchByName("o\\_c")));
+        assertEquals(List.of(1), ids(catalog.searchByName("0\\% l")));
+        assertTrue(catalog.searchByName("0\\%l").isEmpty());
+    }
+
+    @Test
+    void returnedItemsAreCopies() throws SQLException {
+        ClothingItem item = catalog.getById(5);
+        assertNotSame(item, catalog.getById(5));
+
+        item.setPrice(1);
+        assertEquals(12000, catalog.getById(5).getPrice());
+        assertEquals(List.of(9, 5), ids(catalog.searchByPriceRange(12000, 12000)));
+    }
+
+    @Test
+    void loadCopiesTheGivenItems() throws SQLException {
+        Shirt shirt = new Shirt(3, "Henley", "M", 8000, "Long");
+        catalog.load(List.of(shirt));
+        shirt.setPrice(99000);
+
+        assertEquals(8000, catalog.getById(3).getPrice());
+        assertTrue(catalog.searchByMinPrice(10000).isEmpty());
+    }
+
+    // -------------------- Change feed --------------------
+
+    private static ItemChange upsert(long changeId, ClothingItem item) {
+        return new ItemChange(changeId, item.getItemId(), ItemChange.UPDATE, item);
+    }
+
+    private static ItemChange delete(long changeId, int itemId) {
+        return new ItemChange(changeId, itemId, ItemChange.DELETE, null);
+    }
+
+    @Test
+    void changesAreMergedIntoEveryIndex() throws SQLException {
+        catalog.onChanges(List.of(
+                upsert(1, new Jacket(4, "Bomber", "M", 30000, "Autumn")),
+                upsert(2, new Shirt(5, "Oxford", "M", 50000, "Long")),
+                delete(3, 2)));
+
+        assertEquals(List.of(1, 4, 5, 7, 9), ids(catalog.getAll()));
+        assertEquals(List.of(4, 7), ids(catalog.getByType("JACKET")));
+        assertEquals(List.of(5, 4, 7), ids(catalog.searchByMinPrice(20000)));
+        assertEquals(List.of(9), ids(catalog.searchByPriceRange(12000, 12000)));
+        assertEquals(50000, catalog.getById(5).getPrice());
+        assertNull(catalog.getById(2));
+    }
+
+    @Test
+    void retypedItemMovesBetweenTypeIndexes() throws SQLException {
+        catalog.onChanges(List.of(upsert(1, new Jacket(5, "Oxford", "M", 12000, "Winter"))));
+
+        assertEquals(List.of(1, 9), ids(catalog.getByType("SHIRT")));
+        assertEquals(List.of(2, 5, 7), ids(catalog.getByType("JACKET")));
+    }
+
+    @Test
+    void lastChangeOfAnItemWins() throws SQLException {
+        catalog.onChanges(List.of(
+                upsert(1, new Shirt(3, "Henley", "M", 8000, "Long")),
+                delete(2, 3),
+                delete(3, 5),
+                upsert(4, new Shirt(5, "Oxford", "M", 13000, "Long"))));
+
+        assertNull(catalog.getById(3));
+        assertEquals(13000, catalog.getById(5).getPrice());
+        assertEquals(5, catalog.size());
+    }
+
+    @Test
+    void deleteOfAnUnknownItemAndEmptyBatchChangeNothing() throws SQLException {
+        List<ClothingItem> before = catalog.getAll();
+        catalog.onChanges(List.of());
+        catalog.onChanges(List.of(delete(1, 1234)));
+
+        assertEquals(ids(before), ids(catalog.getAll()));
+        assertEquals(List.of(2, 7, 9, 5, 1), ids(catalog.searchByMinPrice(0)));
+    }
+
+    @Test
+    void changedItemIsCopiedOnTheWayIn() throws SQLException {
+        Shirt shirt = new Shirt(3, "Henley", "M", 8000, "Long");
+        catalog.onChanges(List.of(upsert(1, shirt)));
+        shirt.setPrice(99000);
+
+        assertEquals(8000, catalog.getById(3).getPrice());
+        assertEquals(List.of(2), ids(catalog.searchByMinPrice(45000)));
+    }
+
+    // The merged snapshot must answer every query exactly like a full reload of the same rows
+    @Test
+    void mergedSnapshotMatchesAFullReload() throws SQLException {
+        Random random = new Random(42);
+        Map<Integer, ClothingItem> table = new TreeMap<>();
+        for (ClothingItem item : catalog.getAll()) {
+            table.put(item.getItemId(), item);
+        }
+        long changeId = 0;
+
+        for (int round = 0; round < 200; round++) {
+            List<ItemChange> changes = new ArrayList<>();
+            for (int i = random.nextInt(6); i >= 0; i--) {
+                int itemId = 1 + random.nextInt(40);
+                if (random.nextInt(4) == 0) {
+                    table.remove(itemId);
+                    changes.add(delete(++changeId, itemId));
+                    continue;
+                }
+                double price = 1000 * (1 + random.nextInt(20));
+                ClothingItem item = random.nextBoolean()
+                        ? new Shirt(itemId, "Shirt " + itemId, "M", price, "Long")
+                        : new Jacket(itemId, "Jacket " + itemId, "L", price, "Winter");
+                table.put(itemId, item);
+                changes.add(upsert(++changeId, item));
+            }
+            catalog.onChanges(changes);
+
+            InMemoryCatalog reloaded = new InMemoryCatalog(null);
+            reloaded.load(table.values());
+            double min = 1000 * random.nextInt(21);
+            double max = min + 1000 * random.nextInt(10);
+
+            assertEquals(ids(reloaded.getAll()), ids(catalog.getAll()));
+            assertEquals(ids(reloaded.getByType("SHIRT")), ids(catalog.getByType("SHIRT")));
+            assertEquals(ids(reloaded.getByType("JACKET")), ids(catalog.getByType("JACKET")));
+            assertEquals(ids(reloaded.searchByPriceRange(min, max)), ids(catalog.searchByPriceRange(min, max)));
+            assertEquals(ids(reloaded.searchByMinPrice(min)), ids(catalog.searchByMinPrice(min)));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package dao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tokens are decoded before the query runs, so these checks need no database.
+// A token that decodes fine reaches the page size check, which then fails instead.
+class PageTokenTest {
+
+    private final ClothingItemDAO dao = new ClothingItemDAO();
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void validTokensAreAccepted() {
+        assertPageSizeRejected(() -> dao.getAllPage(0, token("i:42")));
+        assertPageSizeRejected(() -> dao.searchByNamePage("oxford", 0, token("i:42")));
+        assertPageSizeRejected(() -> dao.searchByMinPricePage(100, 0, token("p:12000.0:42")));
+        assertPageSizeRejected(() -> dao.searchByPriceRangePage(100, 200, 0, null));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertInvalidToken(() -> dao.getAllPage(10, "not base64!"));
+        assertInvalidToken(() -> dao.getAllPage(10, token("i:abc")));
+        assertInvalidToken(() -> dao.searchByMinPricePage(100, 10, token("p:12000.0")));
+        assertInvalidToken(() -> dao.searchByMinPricePage(100, 10, token("p:cheap:42")));
+    }
+
+    @Test
+    void tokenFromAnotherKindOfQueryIsRejected() {
+        assertInvalidToken(() -> dao.searchByPriceRangePage(100, 200, 10, token("i:42")));
+        assertInvalidToken(() -> dao.getByTypePage("SHIRT", 10, token("p:12000.0:42")));
+    }
+
+    @Test
+    void pageWithoutTokenIsTheLastPage() {
+        Page<String> page = new Page<>(List.of("a", "b"), null);
+        assertFalse(page.hasNext());
+        assertFalse(page.isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> page.getItems().add("c"));
+
+        Page<String> first = new Page<>(List.of(), token("i:1"));
+        assertTrue(first.hasNext());
+        assertTrue(first.isEmpty());
+    }
+
+    private static void assertInvalidToken(Executable call) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, call);
+        assertEquals("Invalid page token.", e.getMessage());
+    }
+
+    private static void assertPageSizeRejected(Executable call) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, call);
+        assertTrue(e.getMessage().startsWith("pageSize"), e.getMessage());
+    }
+}
@@ -0,0 +1,190 @@
+package dao;
+
+import model.ClothingItem;
+import model.Shirt;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryResultCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    // A loader that counts its calls and returns shirts with the given IDs
+    private QueryResultCache.Loader rows(int... ids) {
+        return () -> {
+            loads.incrementAndGet();
+            List<ClothingItem> items = new ArrayList<>();
+            for (int itemId : ids) {
+                items.add(new Shirt(itemId, "Shirt " + itemId, "M", 1000, "Long"));
+            }
+            return items;
+        };
+    }
+
+    @Test
+    void secondGetIsAHit() throws SQLException {
+        QueryResultCache cache = new QueryResultCache(100, 0);
+
+        cache.get("all", rows(1, 2));
+        List<ClothingItem> cached = cache.get("all", rows(1, 2));
+
+        assertEquals(1, loads.get());
+        assertEquals(2, cached.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getRetainedRows());
+    }
+
+    @Test
+    void callersCannotChangeCachedRows() throws SQLException {
+        QueryResultCache cache = new QueryResultCache(100, 0);
+
+        cache.get("all", rows(1)).get(0).setPrice(1);
+        List<ClothingItem> hit = cache.get("all", rows(1));
+        hit.get(0).setPrice(2);
+        hit.clear();
+
+        assertEquals(1000, cache.get("all", rows(1)).get(0).getPrice());
+    }
+
+    @Test
+    void invalidateAllForcesANewLoad() throws SQLException {
+        QueryResultCache cache = new QueryResultCache(100, 0);
+
+        cache.get("all", rows(1));
+        cache.invalidateAll();
+        cache.get("all", rows(1));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedResultsAreEvictedWhenOverTheRowBudget() throws SQLException {
+        QueryResultCache cache = new QueryResultCache(3, 0);
+
+        cache.get("a", rows(1));
+        cache.get("b", rows(2));
+        cache.get("c", rows(3));
+        cache.get("a", rows(1));
+        cache.get("d", rows(4, 5));
+
+        // b and c were used least recently; a was read again before d came in
+        assertEquals(2, cache.getEvictionCount());
+        assertEquals(3, cache.getRetainedRows());
+        int before = loads.get();
+        cache.get("a", rows(1));
+        cache.get("d", rows(4, 5));
+        assertEquals(before, loads.get());
+        cache.get("b", rows(2));
+        assertEquals(before + 1, loads.get());
+    }
+
+    @Test
+    void resultLargerThanTheBudgetIsNotCached() throws SQLException {
+        QueryResultCache cache = new QueryResultCache(2, 0);
+
+        assertEquals(3, cache.get("all", rows(1, 2, 3)).size());
+        cache.get("all", rows(1, 2, 3));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void zeroBudgetTurnsCachingOff() throws SQLException {
+        QueryResultCache cache = new QueryResultCache(0, 0);
+
+        cache.get("all", rows(1));
+        cache.get("all", rows(1));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    void expiredResultIsLoadedAgain() throws Exception {
+        QueryResultCache cache = new QueryResultCache(100, 1);
+
+        cache.get("all", rows(1));
+        Thread.sleep(10);
+        cache.get("all", rows(1));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getRetainedRows());
+    }
+
+    @Test
+    void failedLoadIsNotCached() throws SQLException {
+        QueryResultCache cache = new QueryResultCache(100, 0);
+
+        SQLException failure = new SQLException("connection lost");
+        assertSame(failure, assertThrows(SQLException.class, () -> cache.get("all", () -> {
+            throw failure;
+        })));
+        cache.get("all", rows(1));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void resultLoadedAcrossAWriteIsNotCached() throws SQLException {
+        QueryResultCache cache = new QueryResultCache(100, 0);
+
+        cache.get("all", () -> {
+            List<ClothingItem> items = rows(1).load();
+            cache.invalidateAll();
+            return items;
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        QueryResultCache cache = new QueryResultCache(100, 0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        QueryResultCache.Loader slow = () -> {
+            loading.countDown();
+            try {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new SQLException(e);
+            }
+            return rows(1, 2).load();
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<ClothingItem>> first = executor.submit(() -> cache.get("all", slow));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<List<ClothingItem>> second = executor.submit(() -> cache.get("all", slow));
+            while (cache.getSharedLoadCount() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals(2, first.get(5, TimeUnit.SECONDS).size());
+            assertEquals(2, second.get(5, TimeUnit.SECONDS).size());
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
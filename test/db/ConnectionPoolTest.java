@@ -0,0 +1,256 @@
+package db;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the pool against an in-process JDBC driver whose connections only record their state
+class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:fake:pool";
+    private static final FakeDriver DRIVER = new FakeDriver();
+
+    private ConnectionPool pool;
+
+    @BeforeAll
+    static void registerDriver() throws SQLException {
+        DriverManager.registerDriver(DRIVER);
+    }
+
+    @AfterAll
+    static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(DRIVER);
+    }
+
+    @AfterEach
+    void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+        DRIVER.opened.clear();
+    }
+
+    @Test
+    void returnedConnectionIsReused() throws SQLException {
+        pool = new ConnectionPool(URL, new Properties(), 2, 0, 1000);
+
+        pool.getConnection().close();
+        Connection second = pool.getConnection();
+
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(2, pool.getBorrowCount());
+        assertEquals(1, pool.getActiveCount());
+        assertEquals(0, pool.getIdleCount());
+        second.close();
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    void secondCloseOfAHandleDoesNothing() throws SQLException {
+        pool = new ConnectionPool(URL, new Properties(), 1, 0, 1000);
+
+        Connection first = pool.getConnection();
+        first.close();
+        Connection second = pool.getConnection();
+        first.close();
+
+        // The stale handle must not return the connection the second caller is using
+        assertEquals(1, pool.getActiveCount());
+        assertTrue(first.isClosed());
+        assertFalse(second.isClosed());
+        assertThrows(SQLException.class, () -> first.setAutoCommit(false));
+        second.close();
+    }
+
+    @Test
+    void borrowTimesOutWhenAllConnectionsAreInUse() throws SQLException {
+        pool = new ConnectionPool(URL, new Properties(), 1, 0, 50);
+
+        try (Connection ignored = pool.getConnection()) {
+            assertThrows(SQLException.class, pool::getConnection);
+            assertEquals(1, pool.getTimeoutCount());
+        }
+        // The failed borrow must not have used up the permit
+        pool.getConnection().close();
+    }
+
+    @Test
+    void returnedConnectionIsResetForTheNextCaller() throws SQLException {
+        pool = new ConnectionPool(URL, new Properties(), 1, 0, 1000);
+
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+        }
+
+        FakeConnection physical = DRIVER.opened.get(0);
+        assertEquals(1, physical.rollbacks);
+        assertTrue(physical.autoCommit);
+        assertFalse(physical.readOnly);
+    }
+
+    @Test
+    void invalidIdleConnectionIsReplaced() throws SQLException {
+        pool = new ConnectionPool(URL, new Properties(), 1, 0, 1000);
+
+        pool.getConnection().close();
+        DRIVER.opened.get(0).valid = false;
+        pool.getConnection().close();
+
+        assertEquals(2, pool.getCreatedCount());
+        assertEquals(1, pool.getEvictedCount());
+        assertTrue(DRIVER.opened.get(0).closed);
+    }
+
+    @Test
+    void expiredIdleConnectionsAreEvicted() throws Exception {
+        pool = new ConnectionPool(URL, new Properties(), 2, 1, 1000);
+
+        pool.getConnection().close();
+        Thread.sleep(20);
+        pool.evictIdle();
+
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(1, pool.getEvictedCount());
+        assertTrue(DRIVER.opened.get(0).closed);
+    }
+
+    @Test
+    void closedPoolRejectsBorrowsAndDiscardsReturns() throws SQLException {
+        pool = new ConnectionPool(URL, new Properties(), 2, 0, 1000);
+
+        Connection connection = pool.getConnection();
+        pool.close();
+        assertThrows(SQLException.class, pool::getConnection);
+
+        connection.close();
+        assertEquals(0, pool.getIdleCount());
+        assertTrue(DRIVER.opened.get(0).closed);
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionPool(URL, new Properties(), 0, 0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionPool(URL, new Properties(), 1, -1, 1000));
+    }
+
+    @Test
+    void unpooledConnectionDoesNotTakeAPoolSlot() throws SQLException {
+        pool = new ConnectionPool(URL, new Properties(), 1, 0, 50);
+
+        try (Connection listener = pool.openUnpooled(); Connection pooled = pool.getConnection()) {
+            assertFalse(listener.isClosed());
+            assertEquals(1, pool.getCreatedCount());
+            assertEquals(1, pool.getActiveCount());
+        }
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    // Connection state that the pool reads and resets; everything else is unsupported
+    private static final class FakeConnection {
+        private boolean autoCommit = true;
+        private boolean readOnly;
+        private boolean closed;
+        private volatile boolean valid = true;
+        private int rollbacks;
+
+        private Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getAutoCommit":
+                                return autoCommit;
+                            case "setAutoCommit":
+                                autoCommit = (Boolean) args[0];
+                                return null;
+                            case "isReadOnly":
+                                return readOnly;
+                            case "setReadOnly":
+                                readOnly = (Boolean) args[0];
+                                return null;
+                            case "rollback":
+                                rollbacks++;
+                                return null;
+                            case "isClosed":
+                                return closed;
+                            case "close":
+                                closed = true;
+                                return null;
+                            case "isValid":
+                                return valid && !closed;
+                            case "clearWarnings":
+                                return null;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "toString":
+                                return "FakeConnection";
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+
+    private static final class FakeDriver implements Driver {
+        private final List<FakeConnection> opened = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            FakeConnection connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:fake:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+    }
+}
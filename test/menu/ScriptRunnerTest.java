@@ -0,0 +1,97 @@
+package menu;
+
+import exception.InvalidInputException;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Parsing never touches the DAO, so the runner is built without one
+class ScriptRunnerTest {
+
+    private final ScriptRunner runner = new ScriptRunner(null);
+
+    private List<ScriptRunner.Command> parse(String... lines) throws InvalidInputException, IOException {
+        return runner.parse(new BufferedReader(new StringReader(String.join("\n", lines))));
+    }
+
+    private String errors(String... lines) {
+        return assertThrows(InvalidInputException.class, () -> parse(lines)).getMessage();
+    }
+
+    @Test
+    void validScriptIsParsedInOrder() throws Exception {
+        List<ScriptRunner.Command> commands = parse(
+                "# stock for the spring sale",
+                "add-shirt auto | Oxford | M | 12000 | Long",
+                "",
+                "ADD-JACKET 42 | Parka | L | 45000 | Winter   # imported",
+                "update-shirt 7 | Oxford | L | 11000 | Short",
+                "delete 7",
+                "get 42",
+                "all",
+                "type jacket",
+                "name park%",
+                "price 10000 | 20000",
+                "min-price 30000");
+
+        List<String> names = new ArrayList<>();
+        for (ScriptRunner.Command command : commands) {
+            names.add(command.getName());
+        }
+        assertEquals(List.of("add-shirt", "add-jacket", "update-shirt", "delete", "get", "all", "type",
+                "name", "price", "min-price"), names);
+        assertEquals(2, commands.get(0).getLineNumber());
+        assertEquals(4, commands.get(1).getLineNumber());
+        assertTrue(commands.get(0).isWrite());
+        assertTrue(commands.get(3).isWrite());
+        assertFalse(commands.get(4).isWrite());
+        assertFalse(commands.get(9).isWrite());
+    }
+
+    @Test
+    void emptyScriptHasNoCommands() throws Exception {
+        assertTrue(parse().isEmpty());
+        assertTrue(parse("   ", "# only a comment").isEmpty());
+    }
+
+    @Test
+    void everyBadLineIsReportedBeforeAnythingRuns() {
+        String message = errors(
+                "get 1",
+                "fetch 1",
+                "get one",
+                "all",
+                "price 300 | 100");
+
+        assertTrue(message.startsWith("Script has 3 error(s)"), message);
+        assertTrue(message.contains("line 2: unknown command 'fetch'."), message);
+        assertTrue(message.contains("line 3: 'one' is not a valid item ID."), message);
+        assertTrue(message.contains("line 5: min price cannot be bigger than max price."), message);
+    }
+
+    @Test
+    void wrongArgumentCountsAreRejected() {
+        assertTrue(errors("delete").contains("delete takes 1 argument(s), got 0."));
+        assertTrue(errors("all 3").contains("all takes 0 argument(s), got 1."));
+        assertTrue(errors("add-shirt 1 | Oxford | M | 100").contains("add-shirt takes 5 argument(s), got 4."));
+        assertTrue(errors("price 100").contains("price takes 2 argument(s), got 1."));
+    }
+
+    @Test
+    void invalidItemValuesFailWhileParsing() {
+        assertTrue(errors("add-shirt auto | Oxford | M | -5 | Long").contains("price cannot be negative."));
+        assertTrue(errors("add-jacket auto | | M | 100 | Winter").contains("name cannot be empty."));
+        assertTrue(errors("update-jacket 0 | Parka | M | 100 | Winter").contains("itemId must be positive."));
+        assertTrue(errors("add-shirt 1 | Oxford | M | cheap | Long").contains("'cheap' is not a valid price."));
+        assertTrue(errors("type hat").contains("type must be SHIRT or JACKET."));
+    }
+}
@@ -0,0 +1,250 @@
+package store;
+
+import exception.OptimisticLockException;
+import model.ClothingItem;
+import model.Jacket;
+import model.Shirt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedItemStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private MappedItemStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    // No fsync and no background maintenance, so the tests stay fast and deterministic
+    private MappedItemStore open() throws IOException {
+        return new MappedItemStore(directory, false, MappedItemStore.DEFAULT_LOG_LIMIT_BYTES, 0);
+    }
+
+    private void reopen() throws IOException {
+        store.close();
+        store = open();
+    }
+
+    private static List<Integer> ids(List<ClothingItem> items) {
+        List<Integer> ids = new ArrayList<>();
+        for (ClothingItem item : items) {
+            ids.add(item.getItemId());
+        }
+        return ids;
+    }
+
+    private static Shirt shirt(int itemId, double price) {
+        return new Shirt(itemId, "Shirt " + itemId, "M", price, "Long");
+    }
+
+    @Test
+    void insertedItemsCanBeQueried() throws SQLException {
+        store.insertShirt(shirt(3, 12000));
+        store.insertJacket(new Jacket(1, "Parka", "L", 45000, "Winter"));
+        store.insertShirt(shirt(2, 12000));
+
+        ClothingItem parka = store.getById(1);
+        assertInstanceOf(Jacket.class, parka);
+        assertEquals("Winter", ((Jacket) parka).getSeason());
+        assertEquals(List.of(1, 2, 3), ids(store.getAll()));
+        assertEquals(List.of(2, 3), ids(store.getByType("SHIRT")));
+        assertEquals(List.of(3, 2), ids(store.searchByPriceRange(12000, 12000)));
+        assertEquals(List.of(1, 3, 2), ids(store.searchByMinPrice(0)));
+        assertEquals(List.of(1), ids(store.searchByName("ARK")));
+        assertEquals(2, store.getByIds(new int[]{1, 3, 99}).size());
+        assertNull(store.getById(99));
+    }
+
+    @Test
+    void duplicateInsertFailsWithUniqueViolation() throws SQLException {
+        store.insertShirt(shirt(1, 1000));
+
+        SQLException e = assertThrows(SQLException.class, () -> store.insertShirt(shirt(1, 2000)));
+        assertEquals("23505", e.getSQLState());
+        assertEquals(1000, store.getById(1).getPrice());
+    }
+
+    @Test
+    void insertAllIsAllOrNothing() throws SQLException {
+        store.insertShirt(shirt(5, 1000));
+
+        assertThrows(SQLException.class, () -> store.insertAll(List.of(shirt(1, 1), shirt(5, 1))));
+        assertThrows(SQLException.class, () -> store.insertAll(List.of(shirt(2, 1), shirt(2, 1))));
+        assertEquals(1, store.size());
+
+        assertEquals(3, store.insertAll(List.of(shirt(1, 1), shirt(2, 1), shirt(3, 1))));
+        assertEquals(List.of(1, 2, 3, 5), ids(store.getAll()));
+    }
+
+    @Test
+    void insertAllGrowsTheFile() throws IOException, SQLException {
+        List<ClothingItem> items = new ArrayList<>();
+        for (int itemId = 1; itemId <= 3000; itemId++) {
+            items.add(shirt(itemId, itemId));
+        }
+        store.insertAll(items);
+        reopen();
+
+        assertEquals(3000, store.size());
+        assertEquals(2999, store.getById(2999).getPrice());
+    }
+
+    @Test
+    void unsupportedOrOversizedItemsAreRejected() {
+        ClothingItem hat = new ClothingItem(1, "Beanie", "M", 5000) {
+            @Override
+            public String getType() {
+                return "HAT";
+            }
+
+            @Override
+            public ClothingItem copy() {
+                return this;
+            }
+        };
+        SQLException unsupported = assertThrows(SQLException.class, () -> store.insertAll(List.of(hat)));
+        assertEquals("0A000", unsupported.getSQLState());
+
+        Shirt longName = new Shirt(2, "x".repeat(101), "M", 1000, "Long");
+        SQLException tooLong = assertThrows(SQLException.class, () -> store.insertShirt(longName));
+        assertEquals("22001", tooLong.getSQLState());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void updatesBumpTheVersionAndCheckIt() throws SQLException {
+        store.insertShirt(shirt(1, 1000));
+
+        assertTrue(store.updateShirt(1, "Oxford", "L", 1500, "Short"));
+        Shirt current = (Shirt) store.getById(1);
+        assertEquals(1, current.getVersion());
+        assertEquals("Oxford", current.getName());
+
+        current.setPrice(2000);
+        assertTrue(store.updateShirt(current));
+        assertEquals(2, current.getVersion());
+
+        Shirt stale = shirt(1, 3000);
+        stale.setVersion(1);
+        assertThrows(OptimisticLockException.class, () -> store.updateShirt(stale));
+        assertEquals(2000, store.getById(1).getPrice());
+
+        // Like the SQL updates, a jacket update does not touch a shirt row
+        assertFalse(store.updateJacket(1, "Parka", "L", 1, "Winter"));
+        assertFalse(store.updateShirt(2, "Missing", "M", 1, "Long"));
+    }
+
+    @Test
+    void deletedItemIsGone() throws SQLException {
+        store.insertShirt(shirt(1, 1000));
+        store.insertShirt(shirt(2, 2000));
+
+        assertTrue(store.deleteById(1));
+        assertFalse(store.deleteById(1));
+        assertNull(store.getById(1));
+
+        store.insertShirt(shirt(3, 3000));
+        assertEquals(List.of(2, 3), ids(store.getAll()));
+    }
+
+    @Test
+    void contentsSurviveReopening() throws IOException, SQLException {
+        store.insertShirt(shirt(1, 1000));
+        store.insertJacket(new Jacket(2, "Parka", "L", 45000, "Winter"));
+        store.updateShirt(1, "Oxford", "M", 1100, "Long");
+        store.deleteById(2);
+        reopen();
+
+        assertEquals(List.of(1), ids(store.getAll()));
+        assertEquals("Oxford", store.getById(1).getName());
+        assertEquals(1, store.getById(1).getVersion());
+    }
+
+    // Writes the log the way a store that crashed before its next checkpoint would have left it
+    @Test
+    void loggedWritesAreRecoveredOnOpen() throws IOException, SQLException {
+        store.close();
+        ByteBuffer record = ByteBuffer.allocate(RecordCodec.RECORD_SIZE);
+        try (WriteLog log = new WriteLog(directory.resolve("items.log"), false)) {
+            log.replay(0, (operation, ignored) -> {
+            });
+            RecordCodec.write(record, 0, shirt(1, 1000));
+            log.append(WriteLog.PUT, record);
+            RecordCodec.write(record, 0, shirt(2, 2000));
+            log.append(WriteLog.PUT, record);
+            RecordCodec.writeFree(record, 0, 1);
+            log.append(WriteLog.DELETE, record);
+            // A batch cut off by the crash: no closing PUT
+            RecordCodec.write(record, 0, shirt(3, 3000));
+            log.append(WriteLog.BATCH_PUT, record);
+        }
+        store = open();
+
+        assertEquals(List.of(2), ids(store.getAll()));
+        // Recovery checkpoints, so the replayed log is not applied a second time
+        assertEquals(0, Files.size(directory.resolve("items.log")));
+        reopen();
+        assertEquals(List.of(2), ids(store.getAll()));
+    }
+
+    @Test
+    void compactKeepsEveryItem() throws IOException, SQLException {
+        List<ClothingItem> items = new ArrayList<>();
+        for (int itemId = 1; itemId <= 100; itemId++) {
+            items.add(shirt(itemId, itemId));
+        }
+        store.insertAll(items);
+        for (int itemId = 1; itemId <= 90; itemId++) {
+            store.deleteById(itemId);
+        }
+
+        store.compact();
+        reopen();
+
+        assertEquals(10, store.size());
+        assertEquals(List.of(91, 92, 93, 94, 95, 96, 97, 98, 99, 100), ids(store.getAll()));
+        store.insertShirt(shirt(200, 1));
+        assertEquals(11, store.size());
+        assertEquals(91, store.getById(91).getPrice());
+    }
+
+    // Within one JVM the file lock check reports an overlapping lock instead of a failed tryLock
+    @Test
+    void secondOpenOfTheSameDirectoryFails() {
+        assertThrows(OverlappingFileLockException.class, this::open);
+    }
+
+    @Test
+    void closedStoreRejectsCalls() throws IOException {
+        store.close();
+        assertThrows(SQLException.class, () -> store.getById(1));
+        assertThrows(SQLException.class, () -> store.insertShirt(shirt(1, 1)));
+    }
+}
@@ -0,0 +1,168 @@
+package store;
+
+import model.Shirt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WriteLogTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private WriteLog log;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("items.log");
+        log = new WriteLog(file, false);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        log.close();
+    }
+
+    private static ByteBuffer record(int itemId) {
+        ByteBuffer record = ByteBuffer.allocate(RecordCodec.RECORD_SIZE);
+        RecordCodec.write(record, 0, new Shirt(itemId, "Shirt " + itemId, "M", 1000 * itemId, "Long"));
+        return record;
+    }
+
+    // "P7" for a PUT of item 7, "D7" for a DELETE
+    private List<String> replay(long afterSequence) throws IOException {
+        log.close();
+        log = new WriteLog(file, false);
+        List<String> applied = new ArrayList<>();
+        log.replay(afterSequence, (operation, record) ->
+                applied.add((operation == WriteLog.PUT ? "P" : "D") + RecordCodec.itemId(record, 0)));
+        return applied;
+    }
+
+    private long entrySize() throws IOException {
+        Path other = directory.resolve("size.log");
+        try (WriteLog single = new WriteLog(other, false)) {
+            single.append(WriteLog.PUT, record(1));
+            return single.sizeBytes();
+        }
+    }
+
+    @Test
+    void replayAppliesEntriesAfterTheCheckpointInOrder() throws IOException {
+        log.append(WriteLog.PUT, record(1));
+        log.append(WriteLog.PUT, record(2));
+        log.append(WriteLog.DELETE, record(1));
+
+        assertEquals(List.of("P1", "P2", "D1"), replay(0));
+        assertEquals(3, log.getLastSequence());
+        assertEquals(List.of("D1"), replay(2));
+        assertEquals(List.of(), replay(3));
+        assertEquals(3, log.getLastSequence());
+    }
+
+    @Test
+    void tornEntryAtTheEndIsCutOff() throws IOException {
+        log.append(WriteLog.PUT, record(1));
+        log.append(WriteLog.PUT, record(2));
+        long size = log.sizeBytes();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 0, 0, 0, 0, 3, 1, 42}));
+        }
+
+        assertEquals(List.of("P1", "P2"), replay(0));
+        assertEquals(size, Files.size(file));
+
+        // Appends continue after the last good entry
+        log.append(WriteLog.PUT, record(3));
+        assertEquals(List.of("P1", "P2", "P3"), replay(0));
+    }
+
+    @Test
+    void corruptEntryEndsTheReplay() throws IOException {
+        log.append(WriteLog.PUT, record(1));
+        log.append(WriteLog.PUT, record(2));
+        log.append(WriteLog.PUT, record(3));
+        long entrySize = entrySize();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), entrySize + 20);
+        }
+
+        assertEquals(List.of("P1"), replay(0));
+        assertEquals(entrySize, Files.size(file));
+        assertEquals(1, log.getLastSequence());
+    }
+
+    @Test
+    void finishedBatchIsReplayedAsPuts() throws IOException {
+        log.append(WriteLog.BATCH_PUT, record(1), false);
+        log.append(WriteLog.BATCH_PUT, record(2), false);
+        log.append(WriteLog.PUT, record(3), false);
+        log.sync();
+
+        assertEquals(List.of("P1", "P2", "P3"), replay(0));
+        assertEquals(3, log.getLastSequence());
+    }
+
+    @Test
+    void unfinishedBatchIsDroppedWhole() throws IOException {
+        log.append(WriteLog.PUT, record(1));
+        long size = log.sizeBytes();
+        log.append(WriteLog.BATCH_PUT, record(2), false);
+        log.append(WriteLog.BATCH_PUT, record(3), false);
+
+        assertEquals(List.of("P1"), replay(0));
+        assertEquals(size, Files.size(file));
+        assertEquals(1, log.getLastSequence());
+    }
+
+    @Test
+    void batchCutOffByACorruptEntryIsDropped() throws IOException {
+        log.append(WriteLog.BATCH_PUT, record(1), false);
+        log.append(WriteLog.BATCH_PUT, record(2), false);
+        log.append(WriteLog.PUT, record(3), false);
+        long entrySize = entrySize();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), 2 * entrySize + 20);
+        }
+
+        assertEquals(List.of(), replay(0));
+        assertEquals(0, Files.size(file));
+    }
+
+    @Test
+    void rollbackRemovesTheEntriesAfterAMark() throws IOException {
+        log.append(WriteLog.PUT, record(1));
+        long size = log.sizeBytes();
+        long sequence = log.getLastSequence();
+        log.append(WriteLog.BATCH_PUT, record(2), false);
+        log.append(WriteLog.PUT, record(3), false);
+
+        log.rollback(size, sequence);
+        log.append(WriteLog.DELETE, record(1));
+
+        assertEquals(List.of("P1", "D1"), replay(0));
+        assertEquals(2, log.getLastSequence());
+    }
+
+    @Test
+    void clearEmptiesTheLog() throws IOException {
+        log.append(WriteLog.PUT, record(1));
+        log.clear();
+
+        assertEquals(0, log.sizeBytes());
+        assertEquals(List.of(), replay(0));
+    }
+}